@@ -0,0 +1,86 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.benchmark;
+
+import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.item.ItemDecoder;
+import io.nadeshiko.networth.market.AuctionPage;
+import io.nadeshiko.networth.market.BazaarHandler;
+import io.nadeshiko.networth.market.BazaarSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of decoding API responses and item data, from bytes already in memory
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecodingBenchmark {
+
+    private byte[] bazaar;
+    private byte[] auctionPage;
+    private String wardrobe;
+    private String[] itemBytes;
+    private int cursor;
+
+    @Setup
+    public void setup() throws IOException {
+        this.bazaar = Fixtures.load("bazaar");
+        this.auctionPage = Fixtures.load("auctions_0");
+        this.wardrobe = Fixtures.profile().getAsJsonObject("members").getAsJsonObject(Fixtures.profileMember())
+            .getAsJsonObject("inventory").getAsJsonObject("wardrobe_contents").get("data").getAsString();
+        this.itemBytes = AuctionPage.read(new ByteArrayInputStream(this.auctionPage)).auctions().stream()
+            .map(AuctionPage.Entry::itemBytes)
+            .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public Item decodeItem() {
+        int index = this.cursor;
+        this.cursor = index + 1 == this.itemBytes.length ? 0 : index + 1;
+        return ItemDecoder.decodeItem(this.itemBytes[index]);
+    }
+
+    @Benchmark
+    public List<Item> decodeWardrobe() {
+        return ItemDecoder.decodeInventory(this.wardrobe);
+    }
+
+    @Benchmark
+    public BazaarSnapshot readBazaar() throws IOException {
+        return BazaarHandler.read(new ByteArrayInputStream(this.bazaar));
+    }
+
+    @Benchmark
+    public AuctionPage readAuctionPage() throws IOException {
+        return AuctionPage.read(new ByteArrayInputStream(this.auctionPage));
+    }
+}
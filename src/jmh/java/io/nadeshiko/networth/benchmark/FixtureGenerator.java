@@ -0,0 +1,561 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import dev.dewy.nbt.Nbt;
+import dev.dewy.nbt.tags.collection.CompoundTag;
+import dev.dewy.nbt.tags.primitive.StringTag;
+import io.nadeshiko.networth.item.Gemstone;
+import lombok.NonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates the recorded API responses the benchmarks run against
+ * <p>
+ * The fixtures are synthetic, but follow the shape and size of real Hypixel API responses: every item is real NBT
+ * data, and item IDs, reforges and gemstone slots are drawn from the library's own data files. Generation is seeded,
+ * so regenerating produces identical fixtures. Run with the fixture directory as the only argument, i.e.
+ * {@code src/jmh/resources/fixtures}.
+ */
+public class FixtureGenerator {
+
+    /**
+     * The number of BIN auctions per Auction House page, as served by the API
+     */
+    static final int AUCTIONS_PER_PAGE = 1000;
+
+    /**
+     * The number of Auction House pages to generate
+     */
+    static final int AUCTION_PAGES = 2;
+
+    /**
+     * The UUID of the member the profile fixture is generated for
+     */
+    static final String PROFILE_MEMBER = "8f7ac2a8e9b6456f9d0c8e4b0e3c1a27";
+
+    private static final Gson GSON = new Gson();
+
+    private static final String[] ENCHANTMENTS = {
+        "sharpness", "critical", "ender_slayer", "giant_killer", "execute", "first_strike", "looting", "scavenger",
+        "vampirism", "venomous", "protection", "growth", "rejuvenate", "thorns", "champion", "compact", "expertise",
+        "hecatomb", "ultimate_chimera", "ultimate_wise", "ultimate_legion", "ultimate_soul_eater"
+    };
+
+    private static final String[] ESSENCE = {
+        "WITHER", "DRAGON", "SPIDER", "UNDEAD", "DIAMOND", "GOLD", "ICE", "CRIMSON"
+    };
+
+    private static final String[] SACK_ITEMS = {
+        "ENCHANTED_DIAMOND", "ENCHANTED_GOLD", "ENCHANTED_IRON", "ENCHANTED_COAL", "ENCHANTED_REDSTONE",
+        "ENCHANTED_LAPIS_LAZULI", "ENCHANTED_EMERALD", "ENCHANTED_ENDER_PEARL", "ENCHANTED_BONE", "ENCHANTED_STRING",
+        "ENCHANTED_ROTTEN_FLESH", "ENCHANTED_SUGAR", "ENCHANTED_CARROT", "ENCHANTED_POTATO", "ENCHANTED_WHEAT",
+        "MITHRIL_ORE", "TITANIUM_ORE", "GLACITE", "UMBER", "TUNGSTEN", "SULPHUR_ORE", "MAGMA_FISH"
+    };
+
+    private static final String[] BAITS = {
+        "CARROT_BAIT", "MINNOW_BAIT", "FISH_BAIT", "LIGHT_BAIT", "DARK_BAIT", "SPIKED_BAIT", "SPOOKY_BAIT",
+        "CORRUPTED_BAIT", "WORM_BAIT", "SHARK_BAIT", "HOT_BAIT", "GLOWY_CHUM_BAIT"
+    };
+
+    private static final String[] MODIFIERS = {
+        "RECOMBOBULATOR_3000", "HOT_POTATO_BOOK", "FUMING_POTATO_BOOK", "THE_ART_OF_WAR", "THE_ART_OF_PEACE",
+        "FIRST_MASTER_STAR", "SECOND_MASTER_STAR", "THIRD_MASTER_STAR", "FOURTH_MASTER_STAR", "FIFTH_MASTER_STAR",
+        "WORM_MEMBRANE", "GEMSTONE_MIXTURE"
+    };
+
+    private static final String[] ARMOR_SETS = {
+        "SHADOW_ASSASSIN", "CRIMSON", "AURORA", "TERROR", "HOLLOW", "FERVOR", "INFERNAL_CRIMSON", "DIVAN", "GOBLIN",
+        "GLACITE", "MASTIFF", "SPONGE", "THUNDER", "BLAZE", "POWER_WITHER", "SUPERIOR_DRAGON", "NECRON", "STORM",
+        "GOLDOR", "MAXOR"
+    };
+
+    private static final String[] ARMOR_PIECES = {"HELMET", "CHESTPLATE", "LEGGINGS", "BOOTS"};
+
+    private static final String[] WEAPONS = {
+        "HYPERION", "VALKYRIE", "SCYLLA", "ASTRAEA", "GIANTS_SWORD", "DARK_CLAYMORE", "LIVID_DAGGER",
+        "REAPER_FALCHION", "ASPECT_OF_THE_DRAGONS", "ATOMSPLIT_KATANA", "VORPAL_KATANA", "MIDAS_SWORD",
+        "STARRED_MIDAS_SWORD", "SPIRIT_SCEPTRE", "AXE_OF_THE_SHREDDED", "FLOWER_OF_TRUTH", "POOCH_SWORD",
+        "AURORA_STAFF", "YETI_SWORD", "FIREDUST_DAGGER", "BOUQUET_OF_LIES", "DAEDALUS_AXE", "TERMINATOR",
+        "JUJU_SHORTBOW", "ASPECT_OF_THE_END", "GIANTS_CLEAVER"
+    };
+
+    private static final String[] ENRICHMENTS = {
+        "TALISMAN_ENRICHMENT_STRENGTH", "TALISMAN_ENRICHMENT_CRITICAL_DAMAGE", "TALISMAN_ENRICHMENT_INTELLIGENCE",
+        "TALISMAN_ENRICHMENT_DEFENSE", "TALISMAN_ENRICHMENT_MAGIC_FIND", "TALISMAN_ENRICHMENT_ATTACK_SPEED"
+    };
+
+    private static final String[] DYES = {"DYE_PURE_BLACK", "DYE_BONE", "DYE_CELESTE", "DYE_NADESHIKO"};
+
+    private final Random random = new Random(0x6E657477L);
+    private final List<String> reforges;
+    private final Map<String, List<String>> slotsByItem;
+    private final List<String> accessories;
+
+    private FixtureGenerator() throws IOException {
+        this.reforges = new ArrayList<>(readResource("/reforges.json").keySet());
+        this.accessories = new ArrayList<>(readResource("/base/accessories.json").keySet());
+        this.accessories.addAll(List.of("HEGEMONY_ARTIFACT", "BAT_PERSON_ARTIFACT", "SEAL_OF_THE_FAMILY",
+            "TREASURE_ARTIFACT", "WITHER_RELIC", "ENDER_RELIC", "BEASTMASTER_CREST_LEGENDARY",
+            "KUUDRA_FOLLOWER_RELIC"));
+
+        this.slotsByItem = new LinkedHashMap<>();
+        JsonObject items = readResource("/gemstone_slots.json").getAsJsonObject("items");
+        for (String key : items.keySet()) {
+            this.slotsByItem.put(key, new ArrayList<>(items.getAsJsonObject(key).keySet()));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Path.of(args.length > 0 ? args[0] : "src/jmh/resources/fixtures");
+        Files.createDirectories(directory);
+
+        FixtureGenerator generator = new FixtureGenerator();
+        generator.writeBazaar(directory.resolve("bazaar.json.gz"));
+        for (int page = 0; page < AUCTION_PAGES; page++) {
+            generator.writeAuctionPage(directory.resolve("auctions_" + page + ".json.gz"), page);
+        }
+        generator.writeAuctionsEnded(directory.resolve("auctions_ended.json.gz"));
+        generator.writeProfile(directory.resolve("profile.json.gz"));
+    }
+
+    // ================================
+    //  BAZAAR
+    // ================================
+
+    private void writeBazaar(@NonNull Path path) throws IOException {
+        try (JsonWriter json = writer(path)) {
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("lastUpdated").value(1_700_000_000_000L);
+            json.name("products").beginObject();
+
+            for (String enchantment : ENCHANTMENTS) {
+                for (int level = 1; level <= 7; level++) {
+                    this.writeProduct(json, "ENCHANTMENT_" + enchantment.toUpperCase() + "_" + level,
+                        1000 * Math.pow(2.2, level));
+                }
+            }
+            for (Gemstone.Type type : Gemstone.Type.values()) {
+                for (Gemstone.Quality quality : Gemstone.Quality.values()) {
+                    this.writeProduct(json, new Gemstone(type, quality).getId(),
+                        4 * Math.pow(80, quality.ordinal()));
+                }
+            }
+            for (String stone : readResource("/reforges.json").entrySet().stream()
+                    .map(entry -> entry.getValue().getAsString()).distinct().toList()) {
+                this.writeProduct(json, stone, 50_000 + this.random.nextInt(5_000_000));
+            }
+            for (String essence : ESSENCE) {
+                this.writeProduct(json, "ESSENCE_" + essence, 500 + this.random.nextInt(3000));
+            }
+            for (String id : SACK_ITEMS) {
+                this.writeProduct(json, id, 100 + this.random.nextInt(5000));
+            }
+            for (String id : BAITS) {
+                this.writeProduct(json, id, 50 + this.random.nextInt(2000));
+            }
+            for (String id : MODIFIERS) {
+                this.writeProduct(json, id, 100_000 + this.random.nextInt(20_000_000));
+            }
+
+            json.endObject();
+            json.endObject();
+        }
+    }
+
+    private void writeProduct(@NonNull JsonWriter json, @NonNull String id, double price) throws IOException {
+        double sell = price * 0.95;
+
+        json.name(id).beginObject();
+        json.name("product_id").value(id);
+        this.writeSummary(json, "sell_summary", sell, -1);
+        this.writeSummary(json, "buy_summary", price, 1);
+
+        json.name("quick_status").beginObject();
+        json.name("productId").value(id);
+        json.name("sellPrice").value(sell);
+        json.name("sellVolume").value(this.random.nextInt(1_000_000));
+        json.name("sellMovingWeek").value(this.random.nextInt(10_000_000));
+        json.name("sellOrders").value(this.random.nextInt(500));
+        json.name("buyPrice").value(price);
+        json.name("buyVolume").value(this.random.nextInt(1_000_000));
+        json.name("buyMovingWeek").value(this.random.nextInt(10_000_000));
+        json.name("buyOrders").value(this.random.nextInt(500));
+        json.endObject();
+
+        json.endObject();
+    }
+
+    private void writeSummary(@NonNull JsonWriter json, @NonNull String name, double price, int direction)
+            throws IOException {
+        json.name(name).beginArray();
+        for (int i = 0; i < 30; i++) {
+            json.beginObject();
+            json.name("amount").value(1 + this.random.nextInt(2240));
+            json.name("pricePerUnit").value(Math.round(price * (1 + direction * i * 0.002) * 10) / 10.0);
+            json.name("orders").value(1 + this.random.nextInt(5));
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    // ================================
+    //  AUCTION HOUSE
+    // ================================
+
+    private void writeAuctionPage(@NonNull Path path, int page) throws IOException {
+        try (JsonWriter json = writer(path)) {
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("page").value(page);
+            json.name("totalPages").value(AUCTION_PAGES);
+            json.name("totalAuctions").value(AUCTION_PAGES * AUCTIONS_PER_PAGE);
+            json.name("lastUpdated").value(1_700_000_000_000L);
+            json.name("auctions").beginArray();
+
+            for (int i = 0; i < AUCTIONS_PER_PAGE; i++) {
+                String id = this.randomAuctionItem();
+                double price = 1_000_000 + this.random.nextInt(400) * 250_000;
+
+                json.beginObject();
+                json.name("uuid").value(this.uuid());
+                json.name("auctioneer").value(this.uuid());
+                json.name("profile_id").value(this.uuid());
+                json.name("coop").beginArray().endArray();
+                json.name("start").value(1_699_900_000_000L);
+                json.name("end").value(4_102_444_800_000L); // listings in the fixture never expire
+                json.name("item_name").value(id);
+                json.name("item_lore").value("§7Damage: §c+260\n§7Strength: §c+150\n\n" +
+                    "§6§lLEGENDARY DUNGEON SWORD");
+                json.name("extra").value(id.toLowerCase().replace('_', ' '));
+                json.name("category").value("weapon");
+                json.name("tier").value("LEGENDARY");
+                json.name("starting_bid").value(price);
+                json.name("item_bytes").value(this.encode(List.of(this.randomItem(id, 1))));
+                json.name("claimed").value(false);
+                json.name("claimed_bidders").beginArray().endArray();
+                json.name("highest_bid_amount").value(0);
+                json.name("last_updated").value(1_699_900_000_000L);
+                json.name("bin").value(i % 10 != 0); // the API also serves regular auctions, which are skipped
+                json.name("bids").beginArray().endArray();
+                json.name("item_uuid").value(this.uuid());
+                json.endObject();
+            }
+
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private void writeAuctionsEnded(@NonNull Path path) throws IOException {
+        try (JsonWriter json = writer(path)) {
+            json.beginObject();
+            json.name("success").value(true);
+            json.name("lastUpdated").value(1_700_000_000_000L);
+            json.name("auctions").beginArray();
+
+            for (int i = 0; i < 200; i++) {
+                json.beginObject();
+                json.name("auction_id").value(this.uuid());
+                json.name("seller").value(this.uuid());
+                json.name("seller_profile").value(this.uuid());
+                json.name("buyer").value(this.uuid());
+                json.name("timestamp").value(1_699_999_000_000L);
+                json.name("price").value(1_000_000 + this.random.nextInt(100_000_000));
+                json.name("bin").value(true);
+                json.name("item_bytes").value(this.encode(List.of(this.randomItem(this.randomAuctionItem(), 1))));
+                json.endObject();
+            }
+
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private String randomAuctionItem() {
+        return switch (this.random.nextInt(10)) {
+            case 0, 1, 2 -> WEAPONS[this.random.nextInt(WEAPONS.length)];
+            case 3, 4, 5 -> ARMOR_SETS[this.random.nextInt(ARMOR_SETS.length)] + "_" +
+                ARMOR_PIECES[this.random.nextInt(ARMOR_PIECES.length)];
+            case 6, 7 -> this.accessories.get(this.random.nextInt(this.accessories.size()));
+            case 8 -> ENRICHMENTS[this.random.nextInt(ENRICHMENTS.length)];
+            default -> DYES[this.random.nextInt(DYES.length)];
+        };
+    }
+
+    // ================================
+    //  PROFILE
+    // ================================
+
+    private void writeProfile(@NonNull Path path) throws IOException {
+        try (JsonWriter json = writer(path)) {
+            json.beginObject();
+            json.name("profile_id").value(this.uuid());
+            json.name("cute_name").value("Strawberry");
+
+            json.name("members").beginObject();
+            json.name(PROFILE_MEMBER).beginObject();
+
+            json.name("currencies").beginObject();
+            json.name("coin_purse").value(48_213_907.4);
+            json.name("essence").beginObject();
+            for (String essence : ESSENCE) {
+                json.name(essence).beginObject().name("current").value(this.random.nextInt(50_000)).endObject();
+            }
+            json.endObject();
+            json.endObject();
+
+            json.name("inventory").beginObject();
+
+            json.name("sacks_counts").beginObject();
+            for (String id : SACK_ITEMS) {
+                json.name(id).value(this.random.nextInt(100_000));
+            }
+            json.name("UNKNOWN_SACK_ITEM").value(64); // not every sack item is on the bazaar
+            json.endObject();
+
+            json.name("bag_contents").beginObject();
+            this.writeInventory(json, "talisman_bag", this.accessoryBag());
+            this.writeInventory(json, "fishing_bag", this.fishingBag());
+            json.endObject();
+
+            this.writeInventory(json, "wardrobe_contents", this.wardrobe());
+
+            json.endObject();
+            json.endObject();
+            json.endObject();
+
+            json.name("banking").beginObject().name("balance").value(1_250_000_000.0).endObject();
+            json.endObject();
+        }
+    }
+
+    private void writeInventory(@NonNull JsonWriter json, @NonNull String name, @NonNull List<CompoundTag> items)
+            throws IOException {
+        json.name(name).beginObject();
+        json.name("type").value(0);
+        json.name("data").value(this.encode(items));
+        json.endObject();
+    }
+
+    private List<CompoundTag> accessoryBag() {
+        List<CompoundTag> items = new ArrayList<>();
+        for (int slot = 0; slot < 9 * 18; slot++) { // a maxed accessory bag
+            items.add(slot < this.accessories.size() * 4 ?
+                this.randomItem(this.accessories.get(slot % this.accessories.size()), 1) : new CompoundTag());
+        }
+        return items;
+    }
+
+    private List<CompoundTag> fishingBag() {
+        List<CompoundTag> items = new ArrayList<>();
+        for (int slot = 0; slot < 45; slot++) {
+            items.add(slot % 3 == 2 ? new CompoundTag() :
+                this.randomItem(BAITS[this.random.nextInt(BAITS.length)], 1 + this.random.nextInt(64)));
+        }
+        return items;
+    }
+
+    private List<CompoundTag> wardrobe() {
+        List<CompoundTag> items = new ArrayList<>();
+        for (int slot = 0; slot < 18 * 4; slot++) { // two wardrobe pages
+            items.add(slot % 5 == 4 ? new CompoundTag() : this.randomItem(
+                ARMOR_SETS[slot / 4 % ARMOR_SETS.length] + "_" + ARMOR_PIECES[slot % 4], 1));
+        }
+        return items;
+    }
+
+    // ================================
+    //  ITEMS
+    // ================================
+
+    private CompoundTag randomItem(@NonNull String id, int count) {
+        CompoundTag attributes = new CompoundTag("ExtraAttributes");
+        attributes.putString("id", id);
+        attributes.putString("uuid", UUID.nameUUIDFromBytes(this.bytes()).toString());
+        attributes.putLong("timestamp", 1_600_000_000_000L + this.random.nextInt(1_000_000_000));
+
+        boolean gear = count == 1 && !id.contains("BAIT") && !id.startsWith("DYE_") &&
+            !id.startsWith("TALISMAN_ENRICHMENT_");
+
+        if (gear) {
+            if (this.random.nextInt(4) != 0) {
+                attributes.putString("modifier", this.reforges.get(this.random.nextInt(this.reforges.size())));
+            }
+            if (this.random.nextBoolean()) {
+                attributes.putInt("rarity_upgrades", 1);
+            }
+            if (this.random.nextBoolean()) {
+                attributes.putInt("hot_potato_count", 10 + this.random.nextInt(6));
+            }
+            if (this.random.nextInt(4) == 0) {
+                attributes.putInt("art_of_war_count", 1);
+            }
+            if (this.random.nextInt(8) == 0) {
+                attributes.putInt("artOfPeaceApplied", 1);
+            }
+            if (this.random.nextInt(3) == 0) {
+                attributes.putInt("dungeon_item", 1);
+                attributes.putInt("upgrade_level", 5 + this.random.nextInt(6));
+            }
+            if (this.random.nextInt(6) == 0) {
+                attributes.putString("dye_item", DYES[this.random.nextInt(DYES.length)]);
+            }
+            if (this.accessories.contains(id) && this.random.nextBoolean()) {
+                attributes.putString("talisman_enrichment", "magic_find");
+            }
+
+            CompoundTag enchantments = new CompoundTag("enchantments");
+            for (int i = this.random.nextInt(8); i > 0; i--) {
+                enchantments.putInt(ENCHANTMENTS[this.random.nextInt(ENCHANTMENTS.length)], 1 + this.random.nextInt(7));
+            }
+            if (enchantments.size() > 0) {
+                attributes.put("enchantments", enchantments);
+            }
+
+            CompoundTag gems = this.randomGems(id);
+            if (gems != null) {
+                attributes.put("gems", gems);
+            }
+        }
+
+        CompoundTag display = new CompoundTag("display");
+        display.putString("Name", "§6" + id);
+        display.putList("Lore", List.of(
+            new StringTag("§7Gear Score: §d" + this.random.nextInt(1000)),
+            new StringTag("§7Damage: §c+" + this.random.nextInt(500)),
+            new StringTag(""),
+            new StringTag("§6§lLEGENDARY")
+        ));
+
+        CompoundTag tag = new CompoundTag("tag");
+        tag.putByte("Unbreakable", (byte) 1);
+        tag.putInt("HideFlags", 254);
+        tag.put("display", display);
+        tag.put("ExtraAttributes", attributes);
+
+        CompoundTag stack = new CompoundTag();
+        stack.putShort("id", (short) 267);
+        stack.putByte("Count", (byte) count);
+        stack.put("tag", tag);
+        stack.putShort("Damage", (short) 0);
+        return stack;
+    }
+
+    private CompoundTag randomGems(@NonNull String id) {
+        List<String> slots = this.slotsByItem.entrySet().stream()
+            .filter(entry -> entry.getKey().equals(id) || id.matches(entry.getKey()))
+            .map(Map.Entry::getValue)
+            .findFirst()
+            .orElse(null);
+
+        if (slots == null) {
+            return null;
+        }
+
+        CompoundTag gems = new CompoundTag("gems");
+        List<StringTag> unlocked = new ArrayList<>();
+
+        for (String slot : slots) {
+            if (this.random.nextInt(4) == 0) {
+                continue; // leave some slots empty and locked
+            }
+
+            unlocked.add(new StringTag(slot));
+            String quality = Gemstone.Quality.values()[2 + this.random.nextInt(3)].name();
+            String type = slot.substring(0, slot.lastIndexOf('_'));
+
+            if (this.random.nextInt(5) == 0) { // newer items store gems as a compound with a UUID
+                CompoundTag gem = new CompoundTag(slot);
+                gem.putString("quality", quality);
+                gem.putString("uuid", this.uuid());
+                gems.put(slot, gem);
+            } else {
+                gems.putString(slot, quality);
+            }
+
+            if (Gemstone.Type.of(type) == null) { // complex slots record which gemstone they hold
+                Gemstone.Type held = Gemstone.Type.values()[this.random.nextInt(Gemstone.Type.values().length)];
+                gems.putString(slot + "_gem", held.name());
+            }
+        }
+
+        gems.putList("unlocked_slots", unlocked);
+        return gems;
+    }
+
+    /**
+     * Encode items the way the API does: as a base64-encoded, gzipped NBT compound with an "i" list
+     */
+    private String encode(@NonNull List<CompoundTag> items) throws IOException {
+        CompoundTag root = new CompoundTag("");
+        root.putList("i", items);
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        new Nbt().toStream(root, new DataOutputStream(raw));
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(raw.toByteArray());
+        }
+
+        return Base64.getEncoder().encodeToString(compressed.toByteArray());
+    }
+
+    private String uuid() {
+        return UUID.nameUUIDFromBytes(this.bytes()).toString().replace("-", "");
+    }
+
+    private byte[] bytes() {
+        byte[] bytes = new byte[16];
+        this.random.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static JsonWriter writer(@NonNull Path path) throws IOException {
+        OutputStream out = new GZIPOutputStream(Files.newOutputStream(path));
+        return new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    private static JsonObject readResource(@NonNull String name) throws IOException {
+        try (InputStream in = FixtureGenerator.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + name);
+            }
+            return GSON.fromJson(new InputStreamReader(in, StandardCharsets.UTF_8), JsonObject.class);
+        }
+    }
+}
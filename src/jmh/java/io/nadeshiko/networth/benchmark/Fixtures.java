@@ -0,0 +1,128 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.benchmark;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.nadeshiko.networth.CalculatorConfig;
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.exception.InvalidApiKeyException;
+import io.nadeshiko.networth.market.InMemoryMarketDataSource;
+import io.nadeshiko.networth.market.MarketConfig;
+import io.nadeshiko.networth.market.MarketDataSource;
+import io.nadeshiko.networth.market.RefreshPolicy;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Access to the recorded API responses in {@code fixtures/}, see {@link FixtureGenerator}
+ */
+@UtilityClass
+public class Fixtures {
+
+    /**
+     * Load a fixture
+     * @param name The name of the fixture, i.e. "bazaar" or "auctions_0"
+     * @return The decompressed response body
+     */
+    public byte[] load(@NonNull String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name + ".json.gz")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture named " + name);
+            }
+
+            try (GZIPInputStream gzip = new GZIPInputStream(in)) {
+                return gzip.readAllBytes();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The profile fixture, as found in (/skyblock/profiles)["profiles"]
+     */
+    public JsonObject profile() {
+        return JsonParser.parseString(new String(load("profile"), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    /**
+     * @return The UUID of the member of the profile fixture
+     */
+    public String profileMember() {
+        return FixtureGenerator.PROFILE_MEMBER;
+    }
+
+    /**
+     * @return A {@link MarketDataSource} serving the market fixtures from memory
+     */
+    public InMemoryMarketDataSource dataSource() {
+        List<byte[]> auctionPages = new ArrayList<>();
+        for (int page = 0; page < FixtureGenerator.AUCTION_PAGES; page++) {
+            auctionPages.add(load("auctions_" + page));
+        }
+
+        return new InMemoryMarketDataSource()
+            .setBazaar(load("bazaar"))
+            .setAuctionPages(auctionPages)
+            .setEndedAuctions(load("auctions_ended"));
+    }
+
+    /**
+     * Create a {@link NetworthCalculator} whose market data is loaded from the fixtures, waiting for it to load.
+     * Scheduled refreshes are pushed far enough out that they never run during a benchmark.
+     * @return A new, fully loaded {@link NetworthCalculator}
+     * @throws InvalidApiKeyException If the calculator rejects the placeholder API key
+     * @throws InterruptedException If interrupted while waiting for market data to load
+     */
+    public NetworthCalculator calculator() throws InvalidApiKeyException, InterruptedException {
+        return calculator(CalculatorConfig.builder().validateApiKey(false).build());
+    }
+
+    /**
+     * Create a {@link NetworthCalculator} whose market data is loaded from the fixtures, waiting for it to load.
+     * Scheduled refreshes are pushed far enough out that they never run during a benchmark.
+     * @param calculatorConfig The {@link CalculatorConfig} of the calculator, which shouldn't validate the API key as
+     * the fixtures are served offline
+     * @return A new, fully loaded {@link NetworthCalculator}
+     * @throws InvalidApiKeyException If the calculator rejects the placeholder API key
+     * @throws InterruptedException If interrupted while waiting for market data to load
+     */
+    public NetworthCalculator calculator(@NonNull CalculatorConfig calculatorConfig)
+            throws InvalidApiKeyException, InterruptedException {
+        RefreshPolicy never = RefreshPolicy.every(Duration.ofDays(365));
+
+        NetworthCalculator calculator = new NetworthCalculator("benchmark", MarketConfig.builder()
+            .dataSource(dataSource())
+            .incrementalAuctions(false)
+            .bazaarRefresh(never)
+            .auctionRefresh(never)
+            .build(), calculatorConfig);
+
+        if (!calculator.awaitReady(Duration.ofMinutes(1))) {
+            throw new IllegalStateException("Market fixtures didn't load!");
+        }
+
+        return calculator;
+    }
+}
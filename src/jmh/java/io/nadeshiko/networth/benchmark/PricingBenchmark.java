@@ -0,0 +1,128 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.benchmark;
+
+import com.google.gson.JsonObject;
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.exception.InvalidApiKeyException;
+import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.item.ItemDecoder;
+import io.nadeshiko.networth.item.ItemSimilarity;
+import io.nadeshiko.networth.market.AuctionHandler;
+import io.nadeshiko.networth.market.AuctionIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of pricing single items against a loaded market
+ * <p>
+ * Every invocation prices the next item of the profile fixture's wardrobe and accessory bag, so that results reflect
+ * a realistic mix of items rather than a single, perfectly predicted one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PricingBenchmark {
+
+    private NetworthCalculator calculator;
+    private AuctionIndex auctions;
+    private Item[] items;
+    private Item[] references;
+    private int cursor;
+
+    @Setup
+    public void setup() throws InvalidApiKeyException, InterruptedException {
+        this.calculator = Fixtures.calculator();
+        this.auctions = this.calculator.getMarketManager().getSnapshot().auctions();
+
+        JsonObject inventory = Fixtures.profile().getAsJsonObject("members")
+            .getAsJsonObject(Fixtures.profileMember()).getAsJsonObject("inventory");
+
+        List<Item> items = new ArrayList<>();
+        items.addAll(ItemDecoder.decodeInventory(inventory.getAsJsonObject("wardrobe_contents")
+            .get("data").getAsString()));
+        items.addAll(ItemDecoder.decodeInventory(inventory.getAsJsonObject("bag_contents")
+            .getAsJsonObject("talisman_bag").get("data").getAsString()));
+        items.removeIf(Objects::isNull);
+
+        // pair every item with a listing of the same ID, where one exists, for similarity scoring
+        List<Item> references = new ArrayList<>();
+        for (Item item : items) {
+            List<AuctionHandler.Auction> listings = this.auctions.getAuctions(item.getId());
+            references.add(listings.isEmpty() ? item : listings.get(listings.size() / 2).item());
+        }
+
+        this.items = items.toArray(Item[]::new);
+        this.references = references.toArray(Item[]::new);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.calculator.getMarketManager().shutdown();
+    }
+
+    private int next() {
+        int index = this.cursor;
+        this.cursor = index + 1 == this.items.length ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public double calculateItem() {
+        return this.calculator.calculateItem(this.items[this.next()]);
+    }
+
+    @Benchmark
+    public double calculateItemCraft() {
+        return this.calculator.calculateItemCraft(this.items[this.next()]);
+    }
+
+    @Benchmark
+    public AuctionHandler.Auction findClosest() {
+        return this.auctions.findClosest(this.items[this.next()]);
+    }
+
+    @Benchmark
+    public List<AuctionHandler.Auction> findClosestTopFive() {
+        return this.auctions.findClosest(this.items[this.next()], 5);
+    }
+
+    @Benchmark
+    public double findCheapestPattern() {
+        return this.auctions.findCheapestPrice("^TALISMAN_ENRICHMENT_[A-Z_]+$");
+    }
+
+    @Benchmark
+    public double similarity() {
+        int index = this.next();
+        return ItemSimilarity.standard().similarity(this.items[index], this.references[index]);
+    }
+}
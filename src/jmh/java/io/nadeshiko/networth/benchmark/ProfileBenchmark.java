@@ -0,0 +1,75 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.benchmark;
+
+import com.google.gson.JsonObject;
+import io.nadeshiko.networth.CalculatorConfig;
+import io.nadeshiko.networth.Networth;
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.exception.InvalidApiKeyException;
+import io.nadeshiko.networth.exception.MalformedProfileException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full profile valuation, end to end from the parsed profile JSON
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProfileBenchmark {
+
+    /**
+     * Whether profile sections are evaluated concurrently, see {@link CalculatorConfig#isParallelSections()}
+     */
+    @Param({"false", "true"})
+    private boolean parallelSections;
+
+    private NetworthCalculator calculator;
+    private JsonObject profile;
+
+    @Setup
+    public void setup() throws InvalidApiKeyException, InterruptedException {
+        this.calculator = Fixtures.calculator(CalculatorConfig.builder()
+            .validateApiKey(false)
+            .parallelSections(this.parallelSections)
+            .build());
+        this.profile = Fixtures.profile();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.calculator.getMarketManager().shutdown();
+    }
+
+    @Benchmark
+    public Networth calculatePlayer() throws MalformedProfileException {
+        return this.calculator.calculatePlayer(this.profile, Fixtures.profileMember());
+    }
+}
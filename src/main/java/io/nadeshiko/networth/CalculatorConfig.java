@@ -0,0 +1,99 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth;
+
+import io.nadeshiko.networth.item.ItemSimilarity;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration of how a {@link NetworthCalculator} evaluates items and profiles, and uses the Hypixel API
+ * <p>
+ * Create instances with {@link CalculatorConfig#builder()}; every option has a sensible default.
+ */
+@Getter
+@Builder
+public class CalculatorConfig {
+
+    /**
+     * Whether the API key is checked against the Hypixel API on construction. Disable for offline use.
+     */
+    @Builder.Default
+    private final boolean validateApiKey = true;
+
+    /**
+     * The maximum number of item valuations kept in the {@link ValuationCache}, or zero to disable caching
+     */
+    @Builder.Default
+    private final int valuationCacheSize = 50_000;
+
+    /**
+     * How auctions are scored against the items being valued, to pick the auction an item is priced against
+     */
+    @Builder.Default
+    private final ItemSimilarity itemSimilarity = ItemSimilarity.standard();
+
+    /**
+     * The {@link Executor} batches are evaluated on, i.e. a {@link ForkJoinPool} or a virtual thread per task
+     * executor. Defaults to the common pool.
+     */
+    @Builder.Default
+    private final Executor batchExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * The maximum number of profiles of a batch being evaluated or waiting to be consumed at once
+     */
+    @Builder.Default
+    private final int batchParallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether the independent sections of a profile (sacks, accessories, fishing bag, wardrobe, essence) are decoded
+     * and valued concurrently. Lowers the latency of large profiles on multi-core hosts, at the cost of some overhead
+     * for small ones.
+     */
+    @Builder.Default
+    private final boolean parallelSections = false;
+
+    /**
+     * The {@link Executor} profile sections are evaluated on when {@link CalculatorConfig#parallelSections} is set.
+     * Defaults to the common pool. Must not be a bounded pool that calculations themselves run on, or calculations
+     * waiting for their own sections may exhaust it.
+     */
+    @Builder.Default
+    private final Executor sectionExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * The {@link Executor} asynchronous calculations run on, unless one is given per call. Defaults to the common pool.
+     */
+    @Builder.Default
+    private final Executor asyncExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * How long networths calculated by {@link NetworthCalculator#calculateByUuid} are reused for the same player and
+     * profile. Concurrent lookups share one calculation even when set to zero.
+     */
+    @Builder.Default
+    private final Duration profileCacheTtl = Duration.ofMinutes(5);
+
+    /**
+     * @return A configuration with every option at its default
+     */
+    public static CalculatorConfig defaults() {
+        return CalculatorConfig.builder().build();
+    }
+}
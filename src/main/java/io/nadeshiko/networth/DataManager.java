@@ -19,15 +19,20 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.nadeshiko.networth.item.GemstoneSlotType;
 import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.util.PatternUtil;
 import lombok.NonNull;
 
 import java.io.BufferedReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -51,10 +56,20 @@ public class DataManager {
     private final Map<String, GemstoneSlotType> gemstoneSlotTypes = new HashMap<>();
 
     /**
-     * A map of Regex expressions for item IDs -> (gemstone slot IDs -> gemstone slot type IDs)
+     * A map of exact item IDs -> (gemstone slot IDs -> gemstone slot type IDs)
      */
     private final Map<String, Map<String, String>> gemstoneSlots = new HashMap<>();
 
+    /**
+     * A map of compiled Regex expressions for item IDs -> (gemstone slot IDs -> gemstone slot type IDs)
+     */
+    private final Map<Pattern, Map<String, String>> gemstoneSlotPatterns = new HashMap<>();
+
+    /**
+     * A membership table of item ID -> the gemstone slots of that item, filled on first lookup of each ID
+     */
+    private final Map<String, Map<String, String>> gemstoneSlotsByItem = new ConcurrentHashMap<>();
+
     /**
      * A list of tiered enchantments
      */
@@ -140,7 +155,11 @@ public class DataManager {
                     slotTypes.put(entry1.getKey(), entry1.getValue().getAsString());
                 }
 
-                this.gemstoneSlots.put(entry.getKey(), slotTypes);
+                if (PatternUtil.isLiteral(entry.getKey())) {
+                    this.gemstoneSlots.put(entry.getKey(), slotTypes);
+                } else {
+                    this.gemstoneSlotPatterns.put(PatternUtil.compile(entry.getKey()), slotTypes);
+                }
             }
 
         } catch (Exception e) {
@@ -193,7 +212,8 @@ public class DataManager {
      * @return The hardcoded base price of the item, or zero if none is set
      */
     public double getBasePrice(@NonNull String id) {
-        return this.basePriceMap.getOrDefault(id, 0D);
+        Double price = this.basePriceMap.get(id);
+        return price != null ? price : 0; // getOrDefault would box the default on every call
     }
 
     /**
@@ -205,6 +225,20 @@ public class DataManager {
         return this.reforgeStones.getOrDefault(reforgeName, null);
     }
 
+    /**
+     * @return An unmodifiable map of reforge names -> reforge stone IDs
+     */
+    public Map<String, String> getReforgeStones() {
+        return Collections.unmodifiableMap(this.reforgeStones);
+    }
+
+    /**
+     * @return Every known {@link GemstoneSlotType}
+     */
+    public Collection<GemstoneSlotType> getGemstoneSlotTypes() {
+        return Collections.unmodifiableCollection(this.gemstoneSlotTypes.values());
+    }
+
     /**
      * Tests whether a given enchantment is a tiered (stacking) enchant
      * @param enchantId The ID of the enchantment to check
@@ -225,22 +259,14 @@ public class DataManager {
 
     public List<GemstoneSlotType> getUnlockedGemstoneSlots(@NonNull Item item) {
 
-        // get a map of all unlockable slots on this item
-        Map<String, String> slots = null;
-        for (Map.Entry<String, Map<String, String>> entry : this.gemstoneSlots.entrySet()) {
-            if (item.getId().matches(entry.getKey())) {
-                slots = entry.getValue();
-            }
-        }
-
-        if (slots == null) {
-            return List.of(); // the item has no unlockable gemstone slots
+        if (item.getUnlockedGemstoneSlotCount() == 0) {
+            return List.of(); // nothing unlocked
         }
 
-        List<GemstoneSlotType> slotTypes = new ArrayList<>();
+        List<GemstoneSlotType> slotTypes = new ArrayList<>(item.getUnlockedGemstoneSlotCount());
 
-        for (String unlockedGemstoneSlot : item.getUnlockedGemstoneSlots()) {
-            GemstoneSlotType type = this.gemstoneSlotTypes.get(slots.get(unlockedGemstoneSlot));
+        for (int i = 0; i < item.getUnlockedGemstoneSlotCount(); i++) {
+            GemstoneSlotType type = this.getUnlockedGemstoneSlot(item, i);
 
             if (type == null) {
                 continue; // this can happen sometimes with item families with different slot types, like wither blades
@@ -251,4 +277,42 @@ public class DataManager {
 
         return slotTypes;
     }
+
+    /**
+     * Get the type of one of the unlocked gemstone slots of an item, without building a list of all of them
+     * @param item The {@link Item} to look up
+     * @param index The index of the unlocked slot, from 0 to {@link Item#getUnlockedGemstoneSlotCount()}
+     * @return The type of the slot, or {@code null} if the item has no such unlockable slot
+     */
+    public GemstoneSlotType getUnlockedGemstoneSlot(@NonNull Item item, int index) {
+
+        // get a map of all unlockable slots on this item
+        Map<String, String> slots = this.gemstoneSlotsByItem.get(item.getId());
+        if (slots == null) {
+            slots = this.gemstoneSlotsByItem.computeIfAbsent(item.getId(), this::findGemstoneSlots);
+        }
+
+        return this.gemstoneSlotTypes.get(slots.get(item.getUnlockedGemstoneSlot(index)));
+    }
+
+    /**
+     * Find the unlockable gemstone slots of an item ID by checking the exact IDs first, then the Regex expressions
+     * @param id The item ID to look up
+     * @return A map of gemstone slot IDs -> gemstone slot type IDs, empty if the item has no unlockable slots
+     */
+    private Map<String, String> findGemstoneSlots(@NonNull String id) {
+        Map<String, String> slots = this.gemstoneSlots.get(id);
+
+        if (slots != null) {
+            return slots;
+        }
+
+        for (Map.Entry<Pattern, Map<String, String>> entry : this.gemstoneSlotPatterns.entrySet()) {
+            if (entry.getKey().matcher(id).matches()) {
+                return entry.getValue();
+            }
+        }
+
+        return Map.of();
+    }
 }
@@ -0,0 +1,298 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth;
+
+import io.nadeshiko.networth.item.Gemstone;
+import io.nadeshiko.networth.item.GemstoneSlotType;
+import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.market.BazaarSnapshot;
+import io.nadeshiko.networth.market.MarketSnapshot;
+import io.nadeshiko.networth.market.ProductRegistry;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Modifier prices derived from a single {@link MarketSnapshot}, computed once per snapshot and shared by every
+ * calculation against it
+ * <p>
+ * Pricing a modifier from the raw Bazaar takes string building, case conversion and several lookups per item. Every
+ * such value only depends on the snapshot, so it is resolved here up front into tables, and pricing a modifier
+ * becomes a lookup and an array read. Values depending on a product that isn't on the Bazaar are stored as
+ * {@link Double#NaN}, and looked up the long way on use, so the missing product is still reported.
+ */
+class DerivedPrices {
+
+    private static final String ENCHANTMENT_PREFIX = "ENCHANTMENT_";
+
+    /**
+     * The {@link MarketSnapshot#version()} these prices were derived from
+     */
+    private final long version;
+
+    /**
+     * The Bazaar the prices were derived from, for lookups the tables don't cover
+     */
+    private final BazaarSnapshot bazaar;
+
+    private final DataManager dataManager;
+
+    /**
+     * Prices of each enchantment by level, indexed by the {@link Item#NAMES} ordinal of its name, as found on items
+     */
+    private final EnchantmentPrices[] enchantments;
+
+    /**
+     * A map of reforge name -> reforge stone price. Default reforges cost nothing.
+     */
+    private final Map<String, Double> reforges = new HashMap<>();
+
+    /**
+     * A map of gemstone slot type -> total cost to unlock a slot of that type
+     */
+    private final Map<GemstoneSlotType, Double> slotUnlockCosts = new IdentityHashMap<>();
+
+    /**
+     * Gemstone prices, indexed by {@link Gemstone#pack()}. Gemstones of an unknown type or quality cost nothing.
+     */
+    private final double[] gemstones = new double[256];
+
+    /**
+     * The {@link ProductRegistry} ordinals of the master stars, in order
+     */
+    private final int[] masterStarOrdinals;
+
+    /**
+     * The cost of the first n master stars, indexed by n
+     */
+    private final double[] masterStars;
+
+    /**
+     * The price of the cheapest talisman enrichment on the Auction House, or {@link Double#NaN} if none are listed
+     */
+    private final double cheapestEnrichment;
+
+    /**
+     * Derive the modifier prices of a snapshot
+     * @param market The {@link MarketSnapshot} to derive prices from
+     * @param dataManager The {@link DataManager} describing which products each modifier costs
+     * @param masterStars The {@link ProductRegistry} ordinals of the master stars, in order
+     */
+    DerivedPrices(@NonNull MarketSnapshot market, @NonNull DataManager dataManager, int @NonNull [] masterStars) {
+        this.version = market.version();
+        this.bazaar = market.bazaar();
+        this.dataManager = dataManager;
+
+        // enchantments, from every ENCHANTMENT_<NAME>_<LEVEL> product on the Bazaar
+        Map<String, EnchantmentPrices> enchantments = new HashMap<>();
+        for (int ordinal = 0; ordinal < ProductRegistry.size(); ordinal++) {
+            String id = ProductRegistry.name(ordinal);
+
+            if (!id.startsWith(ENCHANTMENT_PREFIX) || !this.bazaar.hasProduct(ordinal)) {
+                continue;
+            }
+
+            int separator = id.lastIndexOf('_');
+            int level;
+            try {
+                level = Integer.parseInt(id.substring(separator + 1));
+            } catch (NumberFormatException e) {
+                continue; // not an enchanted book
+            }
+
+            String name = id.substring(ENCHANTMENT_PREFIX.length(), separator);
+            enchantments.computeIfAbsent(name.toLowerCase(Locale.ROOT),
+                    key -> new EnchantmentPrices(dataManager.isTieredEnchant(name)))
+                .put(level, this.priceOf(ordinal));
+        }
+
+        int maxOrdinal = -1;
+        for (String name : enchantments.keySet()) {
+            maxOrdinal = Math.max(maxOrdinal, Item.NAMES.intern(name));
+        }
+        this.enchantments = new EnchantmentPrices[maxOrdinal + 1];
+        enchantments.forEach((name, prices) -> this.enchantments[Item.NAMES.find(name)] = prices);
+
+        // reforges
+        for (Map.Entry<String, String> reforge : dataManager.getReforgeStones().entrySet()) {
+            this.reforges.put(reforge.getKey(), dataManager.isDefaultReforge(reforge.getKey()) ? 0 :
+                this.priceOf(ProductRegistry.find(reforge.getValue())));
+        }
+
+        // gemstone slots
+        for (GemstoneSlotType slotType : dataManager.getGemstoneSlotTypes()) {
+            double cost = slotType.getCoinCost();
+            for (Map.Entry<String, Integer> entry : slotType.getItemCost().entrySet()) {
+                cost += this.priceOf(ProductRegistry.find(entry.getKey())) * entry.getValue();
+            }
+            this.slotUnlockCosts.put(slotType, cost);
+        }
+
+        // gemstones
+        for (Gemstone.Type type : Gemstone.Type.values()) {
+            for (Gemstone.Quality quality : Gemstone.Quality.values()) {
+                Gemstone gemstone = Gemstone.of(type, quality);
+                this.gemstones[gemstone.pack()] = this.priceOf(ProductRegistry.find(gemstone.getId()));
+            }
+        }
+
+        // master stars
+        this.masterStarOrdinals = masterStars;
+        this.masterStars = new double[masterStars.length + 1];
+        for (int star = 0; star < masterStars.length; star++) {
+            this.masterStars[star + 1] = this.masterStars[star] + this.priceOf(masterStars[star]);
+        }
+
+        this.cheapestEnrichment = market.auctions().findCheapestPrice("^TALISMAN_ENRICHMENT_[A-Z_]+$");
+    }
+
+    /**
+     * @return The {@link MarketSnapshot#version()} these prices were derived from
+     */
+    long version() {
+        return this.version;
+    }
+
+    /**
+     * @param ordinal The {@link Item#NAMES} ordinal of the name of the enchantment
+     * @param level The level of the enchantment
+     * @return The price of the enchantment. For tiered enchantments, only the level 1 book is sellable, so that is
+     * priced instead.
+     */
+    double getEnchantmentPrice(int ordinal, int level) {
+        EnchantmentPrices prices = ordinal < this.enchantments.length ? this.enchantments[ordinal] : null;
+
+        if (prices != null) {
+            double price = prices.get(level);
+            if (!Double.isNaN(price)) {
+                return price;
+            }
+        }
+
+        // not on the Bazaar, look it up the long way so a missing product is still reported
+        String name = Item.NAMES.name(ordinal);
+        if (this.dataManager.isTieredEnchant(name.toUpperCase())) {
+            level = 1;
+        }
+        return this.bazaar.getMedianPriceUnsafe(ENCHANTMENT_PREFIX + name.toUpperCase() + "_" + level);
+    }
+
+    /**
+     * @param reforge The name of the reforge
+     * @return The price of the reforge's stone, zero for default reforges, or {@link Double#NaN} if the reforge is
+     * unknown
+     */
+    double getReforgePrice(@NonNull String reforge) {
+        Double price = this.reforges.get(reforge);
+
+        if (price == null) {
+            return this.dataManager.isDefaultReforge(reforge) ? 0 : Double.NaN;
+        }
+
+        return !price.isNaN() ? price : this.bazaar.getMedianPriceUnsafe(this.dataManager.getReforgeStone(reforge));
+    }
+
+    /**
+     * @param slotType The {@link GemstoneSlotType} to unlock
+     * @return The coin and item cost of unlocking a slot of the given type
+     */
+    double getSlotUnlockCost(@NonNull GemstoneSlotType slotType) {
+        Double cost = this.slotUnlockCosts.get(slotType);
+
+        if (cost != null && !cost.isNaN()) {
+            return cost;
+        }
+
+        double slotCost = slotType.getCoinCost();
+        for (Map.Entry<String, Integer> entry : slotType.getItemCost().entrySet()) {
+            slotCost += this.bazaar.getMedianPriceUnsafe(entry.getKey()) * entry.getValue();
+        }
+        return slotCost;
+    }
+
+    /**
+     * @param packed The {@link Gemstone#pack() packed} gemstone to price
+     * @return The price of the gemstone, or zero if its type or quality is unknown
+     */
+    double getGemstonePrice(int packed) {
+        double price = this.gemstones[packed];
+        return !Double.isNaN(price) ? price : this.bazaar.getMedianPriceUnsafe(Gemstone.unpack(packed).getId());
+    }
+
+    /**
+     * @param stars The number of master stars applied
+     * @return The combined cost of the first {@code stars} master stars
+     */
+    double getMasterStarCost(int stars) {
+        stars = Math.max(0, Math.min(stars, this.masterStarOrdinals.length));
+
+        if (!Double.isNaN(this.masterStars[stars])) {
+            return this.masterStars[stars];
+        }
+
+        double cost = 0;
+        for (int star = 0; star < stars; star++) {
+            cost += this.bazaar.getMedianPriceUnsafe(this.masterStarOrdinals[star]);
+        }
+        return cost;
+    }
+
+    /**
+     * @return The price of the cheapest talisman enrichment on the Auction House, or {@link Double#NaN} if none are
+     * listed
+     */
+    double getCheapestEnrichment() {
+        return this.cheapestEnrichment;
+    }
+
+    /**
+     * @param ordinal The {@link ProductRegistry} ordinal of a product
+     * @return The median price of the product, or {@link Double#NaN} if it isn't on the Bazaar
+     */
+    private double priceOf(int ordinal) {
+        return this.bazaar.hasProduct(ordinal) ? this.bazaar.getMedianPriceUnsafe(ordinal) : Double.NaN;
+    }
+
+    /**
+     * The prices of a single enchantment by level
+     */
+    private static class EnchantmentPrices {
+        private final boolean tiered;
+        private double[] levels = new double[0];
+
+        private EnchantmentPrices(boolean tiered) {
+            this.tiered = tiered;
+        }
+
+        private void put(int level, double price) {
+            if (level >= this.levels.length) {
+                int length = this.levels.length;
+                this.levels = Arrays.copyOf(this.levels, level + 1);
+                Arrays.fill(this.levels, length, level + 1, Double.NaN);
+            }
+            this.levels[level] = price;
+        }
+
+        private double get(int level) {
+            if (this.tiered) {
+                level = 1;
+            }
+            return level >= 0 && level < this.levels.length ? this.levels[level] : Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth;
+
+import com.google.gson.JsonObject;
+import io.nadeshiko.networth.market.MarketSnapshot;
+import lombok.NonNull;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A batch of networth calculations, evaluated concurrently and handed out in the order they complete
+ * <p>
+ * Requests are pulled from their source only as results are consumed: at most {@code parallelism} profiles are being
+ * evaluated or waiting to be consumed at any time, so memory stays bounded no matter how large the batch is. Every
+ * profile in the batch is priced against the same market snapshot.
+ * <p>
+ * A batch is meant to be consumed by a single thread. Create one with
+ * {@link NetworthCalculator#calculatePlayers(Stream)}.
+ */
+public class NetworthBatch implements Iterator<NetworthBatch.Result>, AutoCloseable {
+
+    private final NetworthCalculator calculator;
+    private final MarketSnapshot market;
+    private final Iterator<Request> requests;
+    private final Executor executor;
+    private final int parallelism;
+
+    /**
+     * Results that have completed but not been consumed yet
+     */
+    private final BlockingQueue<Result> completed = new LinkedBlockingQueue<>();
+
+    /**
+     * The number of requests submitted whose results haven't been consumed yet
+     */
+    private int pending = 0;
+
+    private volatile boolean closed = false;
+
+    NetworthBatch(@NonNull NetworthCalculator calculator, @NonNull MarketSnapshot market,
+                  @NonNull Iterator<Request> requests, @NonNull Executor executor, int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism + "!");
+        }
+
+        this.calculator = calculator;
+        this.market = market;
+        this.requests = requests;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @return Whether more results are pending. Submits further requests up to the parallelism limit.
+     */
+    @Override
+    public boolean hasNext() {
+        this.submit();
+        return this.pending > 0;
+    }
+
+    /**
+     * Wait for the next result to complete
+     * @return The next completed {@link Result}
+     * @throws NoSuchElementException If every result has been consumed
+     * @throws CancellationException If the calling thread was interrupted while waiting
+     */
+    @Override
+    public Result next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("Every result of this batch has been consumed!");
+        }
+
+        try {
+            Result result = this.completed.take();
+            this.pending--;
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a networth calculation!");
+        }
+    }
+
+    /**
+     * Stop submitting requests. Calculations already submitted still run to completion, and their results can still
+     * be consumed.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+    }
+
+    /**
+     * @return A sequential {@link Stream} over the results of this batch, closing the batch when closed
+     */
+    public Stream<Result> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.NONNULL), false)
+            .onClose(this::close);
+    }
+
+    /**
+     * Submit requests until the parallelism limit is reached or the requests run out
+     */
+    private void submit() {
+        while (!this.closed && this.pending < this.parallelism && this.requests.hasNext()) {
+            Request request = this.requests.next();
+
+            this.executor.execute(() -> this.completed.add(this.evaluate(request)));
+            this.pending++;
+        }
+    }
+
+    private Result evaluate(@NonNull Request request) {
+        try {
+            return new Result(request, this.calculator.calculatePlayer(request.profile(), request.uuid(), this.market),
+                null);
+        } catch (Throwable t) { // a result must always be delivered, or the consumer would wait forever
+            return new Result(request, null, t);
+        }
+    }
+
+    /**
+     * A profile member to calculate the networth of
+     * @param profile The profile data (from an entry in (/skyblock/profiles)["profiles"])
+     * @param uuid The UUID of the player to analyze
+     */
+    public record Request(@NonNull JsonObject profile, @NonNull String uuid) {}
+
+    /**
+     * The outcome of a {@link Request}
+     * @param request The request this is the outcome of
+     * @param networth The calculated {@link Networth}, or null if the calculation failed
+     * @param error Why the calculation failed, or null if it succeeded
+     */
+    public record Result(@NonNull Request request, Networth networth, Throwable error) {
+
+        /**
+         * @return Whether the calculation succeeded
+         */
+        public boolean isSuccess() {
+            return this.error == null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces and caches networth calculations per player and profile
+ * <p>
+ * Concurrent lookups of the same player and profile share one calculation. Once it succeeds, its result is kept for
+ * a fixed time to live; failed calculations are never kept, so the next lookup tries again.
+ */
+class NetworthCache {
+
+    /**
+     * How many calculations are started between sweeps of expired entries
+     */
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger started = new AtomicInteger();
+
+    /**
+     * Create a new NetworthCache
+     * @param ttl How long successful results are kept, zero to only coalesce concurrent lookups
+     */
+    NetworthCache(@NonNull Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Look up the networth of a player on a profile, starting a calculation if none is cached or in flight
+     * @param uuid The UUID of the player
+     * @param profileId The ID of the profile, or null for the player's selected profile
+     * @param calculation Starts a new calculation
+     * @return A future completed with the networth. Cached results are shared, and must not be modified.
+     */
+    CompletableFuture<Networth> get(@NonNull String uuid, String profileId,
+                                    @NonNull Supplier<CompletableFuture<Networth>> calculation) {
+        Key key = new Key(normalize(uuid), profileId == null ? null : normalize(profileId));
+
+        while (true) {
+            Entry current = this.entries.get(key);
+            if (current != null && !current.isExpired(System.nanoTime())) {
+                return current.future.copy();
+            }
+
+            Entry entry = new Entry(new CompletableFuture<>());
+            boolean claimed = current == null ? this.entries.putIfAbsent(key, entry) == null :
+                this.entries.replace(key, current, entry);
+
+            if (!claimed) {
+                continue; // another thread started a calculation first, share it
+            }
+
+            if (this.started.incrementAndGet() % SWEEP_INTERVAL == 0) {
+                this.sweep();
+            }
+
+            CompletableFuture<Networth> calculated;
+            try {
+                calculated = calculation.get();
+            } catch (RuntimeException e) {
+                calculated = CompletableFuture.failedFuture(e);
+            }
+
+            calculated.whenComplete((networth, error) -> {
+                if (error != null) {
+                    this.entries.remove(key, entry);
+                    entry.future.completeExceptionally(error);
+                } else {
+                    entry.expiresAt = System.nanoTime() + this.ttlNanos;
+                    entry.future.complete(networth);
+                }
+            });
+
+            return entry.future.copy();
+        }
+    }
+
+    /**
+     * @return The number of cached or in-flight calculations, including expired ones not swept yet
+     */
+    int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Remove every expired entry
+     */
+    private void sweep() {
+        long now = System.nanoTime();
+        this.entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private static String normalize(@NonNull String id) {
+        return id.replace("-", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Key(@NonNull String uuid, String profileId) {}
+
+    private static class Entry {
+        private final CompletableFuture<Networth> future;
+
+        /**
+         * System.nanoTime() at which the result expires, only meaningful once the future completed
+         */
+        private volatile long expiresAt;
+
+        private Entry(@NonNull CompletableFuture<Networth> future) {
+            this.future = future;
+        }
+
+        private boolean isExpired(long now) {
+            return this.future.isDone() && now - this.expiresAt >= 0;
+        }
+    }
+}
@@ -17,29 +17,45 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import io.nadeshiko.networth.exception.InvalidApiKeyException;
+import io.nadeshiko.networth.http.HttpTransport;
+import io.nadeshiko.networth.http.HypixelClient;
 import io.nadeshiko.networth.item.ExoticManager;
-import io.nadeshiko.networth.item.Gemstone;
 import io.nadeshiko.networth.item.Item;
-import io.nadeshiko.networth.market.AuctionHandler;
-import io.nadeshiko.networth.market.BazaarHandler;
-import io.nadeshiko.networth.util.InventoryUtil;
+import io.nadeshiko.networth.item.ItemDecoder;
+import io.nadeshiko.networth.item.ItemFingerprint;
+import io.nadeshiko.networth.market.AuctionIndex;
+import io.nadeshiko.networth.market.MarketConfig;
+import io.nadeshiko.networth.market.MarketManager;
+import io.nadeshiko.networth.market.MarketSnapshot;
+import io.nadeshiko.networth.market.ProductRegistry;
 import io.nadeshiko.networth.exception.MalformedProfileException;
 import io.nadeshiko.networth.exception.NoSuchProductException;
 import io.nadeshiko.networth.item.GemstoneSlotType;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * The core class of the {@code NetworthCalculator} library.
+ * <p>
+ * Every instance refreshes market data and budgets API requests on its own background threads, so close it with
+ * {@link NetworthCalculator#close()} once it's no longer needed.
  */
 @Getter
 @SuppressWarnings("unused") // it's a library, public API methods are not used by us
-public class NetworthCalculator {
+public class NetworthCalculator implements AutoCloseable {
 
     /**
      * Calculator version number
@@ -51,16 +67,36 @@ public class NetworthCalculator {
      */
     public static final Logger LOGGER = LoggerFactory.getLogger("NetworthCalculator");
 
+    /**
+     * Bazaar product ordinals of modifiers priced on every item, resolved once
+     */
+    private static final int RECOMBOBULATOR_3000 = ProductRegistry.intern("RECOMBOBULATOR_3000");
+    private static final int HOT_POTATO_BOOK = ProductRegistry.intern("HOT_POTATO_BOOK");
+    private static final int FUMING_POTATO_BOOK = ProductRegistry.intern("FUMING_POTATO_BOOK");
+    private static final int THE_ART_OF_WAR = ProductRegistry.intern("THE_ART_OF_WAR");
+    private static final int THE_ART_OF_PEACE = ProductRegistry.intern("THE_ART_OF_PEACE");
+    private static final int[] MASTER_STARS = {
+        ProductRegistry.intern("FIRST_MASTER_STAR"),
+        ProductRegistry.intern("SECOND_MASTER_STAR"),
+        ProductRegistry.intern("THIRD_MASTER_STAR"),
+        ProductRegistry.intern("FOURTH_MASTER_STAR"),
+        ProductRegistry.intern("FIFTH_MASTER_STAR")
+    };
+
     /**
      * The Hypixel API key used by this instance
      */
     private final String apiKey;
 
     /**
-     * Market handlers
+     * Client for keyed Hypixel API endpoints, budgeting requests against the key's rate limit
+     */
+    private final HypixelClient hypixelClient;
+
+    /**
+     * Market data, published as immutable snapshots
      */
-    private final BazaarHandler bazaarHandler = new BazaarHandler();
-    private final AuctionHandler auctionHandler = new AuctionHandler();
+    private final MarketManager marketManager;
 
     /**
      * Managers
@@ -68,14 +104,110 @@ public class NetworthCalculator {
     private final DataManager dataManager = new DataManager();
     private final ExoticManager exoticManager = new ExoticManager();
 
+    /**
+     * Modifier prices derived from the latest snapshot priced against, rebuilt whenever the snapshot changes
+     */
+    @Getter(AccessLevel.NONE)
+    private final AtomicReference<DerivedPrices> derivedPrices = new AtomicReference<>();
+
+    /**
+     * Item valuations of the latest snapshot priced against, or null if disabled
+     */
+    private final ValuationCache valuationCache;
+
+    /**
+     * Networths calculated by {@link NetworthCalculator#calculateByUuid}, shared while in flight and reused until
+     * they expire
+     */
+    @Getter(AccessLevel.NONE)
+    private final NetworthCache networthCache;
+
+    /**
+     * How items and profiles are evaluated
+     */
+    private final CalculatorConfig calculatorConfig;
+
     /**
      * Create a new NetworthCalculator instance given a Hypixel API key
      * @param apiKey The Hypixel API key to use
      * @throws InvalidApiKeyException If the provided API key is invalid or non-functional
      */
     public NetworthCalculator(@NonNull String apiKey) throws InvalidApiKeyException {
-       this.apiKey = apiKey;
-       // TODO check key
+        this(apiKey, MarketConfig.defaults());
+    }
+
+    /**
+     * Create a new NetworthCalculator instance given a Hypixel API key and a market configuration
+     * <p>
+     * Market data starts loading in the background and this constructor returns immediately, see
+     * {@link NetworthCalculator#isReady()}.
+     * @param apiKey The Hypixel API key to use
+     * @param marketConfig The {@link MarketConfig} controlling where market data comes from and how often it refreshes
+     * @throws InvalidApiKeyException If the provided API key is invalid or non-functional
+     */
+    public NetworthCalculator(@NonNull String apiKey, @NonNull MarketConfig marketConfig)
+            throws InvalidApiKeyException {
+        this(apiKey, marketConfig, CalculatorConfig.defaults());
+    }
+
+    /**
+     * Create a new NetworthCalculator instance given a Hypixel API key, a market configuration and a calculator
+     * configuration
+     * <p>
+     * Market data starts loading in the background and this constructor returns immediately, see
+     * {@link NetworthCalculator#isReady()}.
+     * @param apiKey The Hypixel API key to use
+     * @param marketConfig The {@link MarketConfig} controlling where market data comes from and how often it refreshes
+     * @param calculatorConfig The {@link CalculatorConfig} controlling how items and profiles are evaluated
+     * @throws InvalidApiKeyException If the provided API key is invalid or non-functional
+     */
+    public NetworthCalculator(@NonNull String apiKey, @NonNull MarketConfig marketConfig,
+                              @NonNull CalculatorConfig calculatorConfig) throws InvalidApiKeyException {
+        this.apiKey = apiKey;
+        this.hypixelClient = new HypixelClient(apiKey, marketConfig.getApiUrl(),
+            new HttpTransport(marketConfig.getHttp()));
+
+        // check the key before any background work starts, without retries so an unreachable API doesn't stall startup
+        if (calculatorConfig.isValidateApiKey()) {
+            try {
+                this.hypixelClient.validateKey();
+            } catch (IOException e) {
+                LOGGER.warn("Couldn't reach the Hypixel API to check the API key, continuing unchecked", e);
+            }
+        }
+
+        this.marketManager = new MarketManager(marketConfig);
+        this.calculatorConfig = calculatorConfig;
+        this.valuationCache = calculatorConfig.getValuationCacheSize() > 0 ?
+            new ValuationCache(calculatorConfig.getValuationCacheSize()) : null;
+        this.networthCache = new NetworthCache(calculatorConfig.getProfileCacheTtl());
+    }
+
+    /**
+     * @return Whether market data has loaded. Until it has, every calculation prices against an empty market.
+     */
+    public boolean isReady() {
+        return this.marketManager.isReady();
+    }
+
+    /**
+     * Wait until market data has loaded
+     * @param timeout The maximum time to wait
+     * @return Whether market data loaded within the timeout
+     * @throws InterruptedException If the calling thread was interrupted while waiting
+     */
+    public boolean awaitReady(@NonNull Duration timeout) throws InterruptedException {
+        return this.marketManager.awaitReady(timeout);
+    }
+
+    /**
+     * Stop refreshing market data and release every background thread of this instance, saving the latest market
+     * snapshot if persistence is enabled. Requests still waiting for the API rate limit are cancelled.
+     */
+    @Override
+    public void close() {
+        this.marketManager.shutdown();
+        this.hypixelClient.shutdown();
     }
 
     /**
@@ -84,24 +216,58 @@ public class NetworthCalculator {
      * @return A best-guess of the value of the provided item
      */
     public double calculateItem(@NonNull Item item) {
+        return this.calculateItem(item, this.marketManager.getSnapshot());
+    }
+
+    /**
+     * Calculates the value of an item against a given market snapshot
+     * @param item The {@link Item} to calculate the value of
+     * @param market The {@link MarketSnapshot} to price against
+     * @return A best-guess of the value of the provided item
+     */
+    private double calculateItem(@NonNull Item item, @NonNull MarketSnapshot market) {
+        if (this.valuationCache == null) {
+            return this.valueItem(item, market);
+        }
+
+        ItemFingerprint key = ItemFingerprint.of(item);
+        double value = this.valuationCache.get(key, market.version());
+
+        if (Double.isNaN(value)) {
+            value = this.valueItem(item, market);
+            this.valuationCache.put(key, market.version(), value);
+        }
+
+        return value;
+    }
+
+    /**
+     * Values an item against a given market snapshot, bypassing the {@link ValuationCache}
+     * @param item The {@link Item} to calculate the value of
+     * @param market The {@link MarketSnapshot} to price against
+     * @return A best-guess of the value of the provided item
+     */
+    private double valueItem(@NonNull Item item, @NonNull MarketSnapshot market) {
 
         // exotics are handled completely differently
         if (this.exoticManager.isExotic(item)) {
             return this.calculateExoticValue(item);
         }
 
-        AuctionHandler.Auction closestAuction = this.auctionHandler.findClosest(item);
+        // the listing's craft cost is cached by the index, as popular listings are the reference of many items
+        AuctionIndex.Reference reference = market.auctions().findReference(item,
+            this.calculatorConfig.getItemSimilarity(), market, listing -> this.calculateItemCraft(listing, market));
 
-        if (closestAuction != null) { // we found a similar item on the AH, base the value off of that
+        if (reference != null) { // we found a similar item on the AH, base the value off of that
 
             // the raw craft cost of this item
-            double rawCraftCost = this.calculateItemCraft(item);
+            double rawCraftCost = this.calculateItemCraft(item, market);
 
             // how much more expensive the AH-based reference is by craft cost
-            double rawCraftDifference = this.calculateItemCraft(closestAuction.item()) - rawCraftCost;
+            double rawCraftDifference = reference.craftCost() - rawCraftCost;
 
             // the estimated value of this item, based on the AH reference
-            double ahBasedValue = closestAuction.price() - rawCraftDifference;
+            double ahBasedValue = reference.price() - rawCraftDifference;
 
             // return the AH-based item value OR the raw craft cost, whichever is cheaper
             // this helps prevent AH manipulation to inflate networth
@@ -109,16 +275,51 @@ public class NetworthCalculator {
         }
 
         else { // we didn't find a similar item on the AH, fall back to the raw craft value
-            return this.calculateItemCraft(item);
+            return this.calculateItemCraft(item, market);
         }
     }
 
+    /**
+     * Calculates the value of an item asynchronously, on the {@link CalculatorConfig#getAsyncExecutor()}
+     * @param item The {@link Item} to calculate the value of
+     * @return A future completed with a best-guess of the value of the provided item
+     * @see NetworthCalculator#calculateItemAsync(Item, Executor)
+     */
+    public @NonNull CompletableFuture<Double> calculateItemAsync(@NonNull Item item) {
+        return this.calculateItemAsync(item, this.calculatorConfig.getAsyncExecutor());
+    }
+
+    /**
+     * Calculates the value of an item asynchronously
+     * <p>
+     * The calling thread never blocks: if market data hasn't loaded yet, the calculation is deferred until it has.
+     * @param item The {@link Item} to calculate the value of
+     * @param executor The {@link Executor} to run the calculation on
+     * @return A future completed with a best-guess of the value of the provided item
+     */
+    public @NonNull CompletableFuture<Double> calculateItemAsync(@NonNull Item item, @NonNull Executor executor) {
+        return this.marketManager.whenReady()
+            .thenApplyAsync(ignored -> this.calculateItem(item, this.marketManager.getSnapshot()), executor)
+            .toCompletableFuture();
+    }
+
     /**
      * Calculates the raw craft cost of an item
      * @param item The {@link Item} to calculate the craft cost of
      * @return The raw craft cost of the provided item
      */
     public double calculateItemCraft(@NonNull Item item) {
+        return this.calculateItemCraft(item, this.marketManager.getSnapshot());
+    }
+
+    /**
+     * Calculates the raw craft cost of an item against a given market snapshot
+     * @param item The {@link Item} to calculate the craft cost of
+     * @param market The {@link MarketSnapshot} to price against
+     * @return The raw craft cost of the provided item
+     */
+    private double calculateItemCraft(@NonNull Item item, @NonNull MarketSnapshot market) {
+        DerivedPrices prices = this.getDerivedPrices(market);
 
         // ================================================================
         //  Step 1: Determine the base value of the item, clean
@@ -128,15 +329,15 @@ public class NetworthCalculator {
         double price = this.dataManager.getBasePrice(item);
 
         // if not, check if there's a price available on the bazaar
-        if (price == 0 && this.bazaarHandler.hasProduct(item.getId())) {
-            price = this.bazaarHandler.getMedianPriceUnsafe(item.getId());
+        if (price == 0 && market.bazaar().hasProduct(item.getId())) {
+            price = market.bazaar().getMedianPriceUnsafe(item.getId());
         }
 
         // if not, check if there's a price available on the AH
         if (price == 0) {
-            AuctionHandler.Auction cheapest = this.auctionHandler.findCheapest(item.getId());
-            if (cheapest != null) {
-                price = cheapest.price();
+            double cheapest = market.auctions().findCheapestPrice(item.getId());
+            if (!Double.isNaN(cheapest)) {
+                price = cheapest;
             }
         }
 
@@ -148,50 +349,47 @@ public class NetworthCalculator {
 
         if (item.getReforge() != null && !item.getReforge().equals("greater_spook") && !item.getReforge().equals("none")) {
 
-            if (!this.dataManager.isDefaultReforge(item.getReforge())) {
-                String reforgeStone = this.dataManager.getReforgeStone(item.getReforge());
+            double reforgePrice = prices.getReforgePrice(item.getReforge());
 
-                if (reforgeStone == null) {
-                    LOGGER.warn("Encountered unknown reforge \"{}\" on {}!", item.getReforge(), item.getId());
-                } else {
-                    price += this.bazaarHandler.getMedianPriceUnsafe(reforgeStone);
-//                System.out.println("Reforge: " + item.getReforge() + " (" + reforgeStone + ") (" +
-//                    Networth.formatter.format(this.bazaarHandler.getMedianPriceUnsafe(reforgeStone)) + ")");
-                }
+            if (Double.isNaN(reforgePrice)) {
+                LOGGER.warn("Encountered unknown reforge \"{}\" on {}!", item.getReforge(), item.getId());
+            } else {
+                price += reforgePrice;
+//                System.out.println("Reforge: " + item.getReforge() + " (" + Networth.formatter.format(reforgePrice) + ")");
             }
         }
         if (item.getUpgradeLevel() > 0) {
-            price += this.calculateUpgradeLevelValue(item);
-//            System.out.println("Upgrade level: " + item.getUpgradeLevel() + " (" + Networth.formatter.format(this.calculateUpgradeLevelValue(item)) + ")");
+            price += this.calculateUpgradeLevelValue(item, prices);
+//            System.out.println("Upgrade level: " + item.getUpgradeLevel() + " (" + Networth.formatter.format(this.calculateUpgradeLevelValue(item, prices)) + ")");
         }
         if (item.isRecombobulated()) {
-            price += this.bazaarHandler.getMedianPriceUnsafe("RECOMBOBULATOR_3000");
+            price += market.bazaar().getMedianPriceUnsafe(RECOMBOBULATOR_3000);
 //            System.out.println("Recombobulated: Yes (" +
-//                Networth.formatter.format(this.bazaarHandler.getMedianPriceUnsafe("RECOMBOBULATOR_3000")) + ")");
+//                Networth.formatter.format(market.bazaar().getMedianPriceUnsafe(RECOMBOBULATOR_3000)) + ")");
         }
         if (item.getHotPotatoBooks() > 0) {
-            price += this.bazaarHandler.getMedianPriceUnsafe("HOT_POTATO_BOOK") * item.getHotPotatoBooks();
+            price += market.bazaar().getMedianPriceUnsafe(HOT_POTATO_BOOK) * item.getHotPotatoBooks();
 //            System.out.println("HPBs: " + item.getHotPotatoBooks() + " (" +
-//                Networth.formatter.format((this.bazaarHandler.getMedianPriceUnsafe("HOT_POTATO_BOOK") * item.getHotPotatoBooks())) + ")");
+//                Networth.formatter.format((market.bazaar().getMedianPriceUnsafe(HOT_POTATO_BOOK) * item.getHotPotatoBooks())) + ")");
         }
         if (item.getFumingPotatoBooks() > 0) {
-            price += this.bazaarHandler.getMedianPriceUnsafe("FUMING_POTATO_BOOK") * item.getFumingPotatoBooks();
+            price += market.bazaar().getMedianPriceUnsafe(FUMING_POTATO_BOOK) * item.getFumingPotatoBooks();
 //            System.out.println("FPBs: " + item.getFumingPotatoBooks() + " (" +
-//                Networth.formatter.format((this.bazaarHandler.getMedianPriceUnsafe("FUMING_POTATO_BOOK") * item.getFumingPotatoBooks())) + ")");
+//                Networth.formatter.format((market.bazaar().getMedianPriceUnsafe(FUMING_POTATO_BOOK) * item.getFumingPotatoBooks())) + ")");
         }
         if (item.isArtOfWar()) {
-            price += this.bazaarHandler.getMedianPriceUnsafe("THE_ART_OF_WAR");
-//            System.out.println("Art of War: Yes (" + Networth.formatter.format(this.bazaarHandler.getMedianPriceUnsafe("THE_ART_OF_WAR")) + ")");
+            price += market.bazaar().getMedianPriceUnsafe(THE_ART_OF_WAR);
+//            System.out.println("Art of War: Yes (" + Networth.formatter.format(market.bazaar().getMedianPriceUnsafe(THE_ART_OF_WAR)) + ")");
         }
         if (item.isArtOfPeace()) {
-            price += this.bazaarHandler.getMedianPriceUnsafe("THE_ART_OF_PEACE");
-//            System.out.println("Art of Peace: Yes (" + Networth.formatter.format(this.bazaarHandler.getMedianPriceUnsafe("THE_ART_OF_PEACE")) + ")");
+            price += market.bazaar().getMedianPriceUnsafe(THE_ART_OF_PEACE);
+//            System.out.println("Art of Peace: Yes (" + Networth.formatter.format(market.bazaar().getMedianPriceUnsafe(THE_ART_OF_PEACE)) + ")");
         }
         if (item.isEnriched()) {
-            AuctionHandler.Auction cheapestEnrich = this.auctionHandler.findCheapest("^TALISMAN_ENRICHMENT_[A-Z_]+$");
-            if (cheapestEnrich != null) {
-                price += cheapestEnrich.price();
-//                System.out.println("Enriched: Yes (" + Networth.formatter.format(cheapestEnrich.price()) + " on AH)");
+            double cheapestEnrich = prices.getCheapestEnrichment();
+            if (!Double.isNaN(cheapestEnrich)) {
+                price += cheapestEnrich;
+//                System.out.println("Enriched: Yes (" + Networth.formatter.format(cheapestEnrich) + " on AH)");
             } else {
                 // if there somehow aren't any enrichments on the AH, fall back to estimate price
                 price += 5000 * Constants.BIT_COST;
@@ -199,57 +397,49 @@ public class NetworthCalculator {
             }
         }
         if (item.getDye() != null) {
-            AuctionHandler.Auction cheapestDye = this.auctionHandler.findCheapest(item.getDye());
-            if (cheapestDye != null) {
-                price += cheapestDye.price();
-//                System.out.println("Dye: " + cheapestDye.item().getId() + " (" + Networth.formatter.format(cheapestDye.price()) + ")");
+            double cheapestDye = market.auctions().findCheapestPrice(item.getDye());
+            if (!Double.isNaN(cheapestDye)) {
+                price += cheapestDye;
+//                System.out.println("Dye: " + item.getDye() + " (" + Networth.formatter.format(cheapestDye) + ")");
             }
         }
 
         // Enchantments
-//        if (!item.getEnchantments().isEmpty()) {
+//        if (item.getEnchantmentCount() > 0) {
 //            System.out.println("Enchantments: ");
 //        }
-        for (Map.Entry<String, Integer> enchantment : item.getEnchantments().entrySet()) {
-            String name = enchantment.getKey();
-            int level = enchantment.getValue();
-
-            if (this.dataManager.isTieredEnchant(name.toUpperCase())) {
-                level = 1; // for tiered (stacking) enchants, only level 1 is sellable, so check that instead
-            }
+        for (int i = 0; i < item.getEnchantmentCount(); i++) {
 
-            String id = "ENCHANTMENT_" + name.toUpperCase() + "_" + level;
-            price += this.bazaarHandler.getMedianPriceUnsafe(id);
+            // for tiered (stacking) enchants, only level 1 is sellable, so that is priced instead
+            price += prices.getEnchantmentPrice(item.getEnchantmentOrdinal(i), item.getEnchantmentLevel(i));
 
-//            System.out.println(" |    " + name + " " + level + " (" + Networth.formatter.format(this.bazaarHandler.getMedianPriceUnsafe(id)) + ")");
+//            System.out.println(" |    " + item.getEnchantmentName(i) + " " + item.getEnchantmentLevel(i) + " (" + Networth.formatter.format(prices.getEnchantmentPrice(item.getEnchantmentOrdinal(i), item.getEnchantmentLevel(i))) + ")");
         }
 
         // Gemstone slots
-        List<GemstoneSlotType> gemstoneSlots = this.dataManager.getUnlockedGemstoneSlots(item);
-//        if (!gemstoneSlots.isEmpty()) {
+//        if (item.getUnlockedGemstoneSlotCount() > 0) {
 //            System.out.println("Gemstone Slots: ");
 //        }
-        for (GemstoneSlotType gemstoneSlot : gemstoneSlots) {
-            double slotCost = gemstoneSlot.getCoinCost();
+        for (int i = 0; i < item.getUnlockedGemstoneSlotCount(); i++) {
+            GemstoneSlotType gemstoneSlot = this.dataManager.getUnlockedGemstoneSlot(item, i);
 
-            for (Map.Entry<String, Integer> entry : gemstoneSlot.getItemCost().entrySet()) {
-                String id = entry.getKey();
-                int amount = entry.getValue();
-
-                slotCost += this.bazaarHandler.getMedianPriceUnsafe(id) * amount;
+            if (gemstoneSlot == null) {
+                continue; // this can happen sometimes with item families with different slot types, like wither blades
             }
 
+            double slotCost = prices.getSlotUnlockCost(gemstoneSlot);
+
 //            System.out.println(" |    " + gemstoneSlot.getName() + " (" + Networth.formatter.format(slotCost) + ")");
             price += slotCost;
         }
 
         // Gemstones
-//        if (!item.getGemstones().isEmpty()) {
+//        if (item.getGemstoneCount() > 0) {
 //            System.out.println("Gemstones: ");
 //        }
-        for (Gemstone gemstone : item.getGemstones()) {
-            price += this.bazaarHandler.getMedianPriceUnsafe(gemstone.getId());
-//            System.out.println(" |    " + gemstone + " (" + Networth.formatter.format(this.bazaarHandler.getMedianPriceUnsafe(gemstone.getId())) + ")");
+        for (int i = 0; i < item.getGemstoneCount(); i++) {
+            price += prices.getGemstonePrice(item.getPackedGemstone(i));
+//            System.out.println(" |    " + item.getGemstone(i) + " (" + Networth.formatter.format(prices.getGemstonePrice(item.getPackedGemstone(i))) + ")");
         }
 
         // ================================================================
@@ -266,9 +456,10 @@ public class NetworthCalculator {
     /**
      * Calculates the value of an item's upgrade level
      * @param item The {@link Item} to calculate for
+     * @param prices The {@link DerivedPrices} of the snapshot to price against
      * @return The cost to upgrade this item to the given upgrade level
      */
-    private double calculateUpgradeLevelValue(@NonNull Item item) {
+    private double calculateUpgradeLevelValue(@NonNull Item item, @NonNull DerivedPrices prices) {
         double value = 0;
 
         // Dungeon items
@@ -277,17 +468,7 @@ public class NetworthCalculator {
             // TODO regular stars
 
             // master stars
-            if (item.getUpgradeLevel() > 5) {
-                value += this.bazaarHandler.getMedianPriceUnsafe("FIRST_MASTER_STAR");
-            } if (item.getUpgradeLevel() > 6) {
-                value += this.bazaarHandler.getMedianPriceUnsafe("SECOND_MASTER_STAR");
-            } if (item.getUpgradeLevel() > 7) {
-                value += this.bazaarHandler.getMedianPriceUnsafe("THIRD_MASTER_STAR");
-            } if (item.getUpgradeLevel() > 8) {
-                value += this.bazaarHandler.getMedianPriceUnsafe("FOURTH_MASTER_STAR");
-            } if (item.getUpgradeLevel() > 9) {
-                value += this.bazaarHandler.getMedianPriceUnsafe("FIFTH_MASTER_STAR");
-            }
+            value += prices.getMasterStarCost(item.getUpgradeLevel() - 5);
         }
 
         // TODO non-dungeon items
@@ -295,6 +476,27 @@ public class NetworthCalculator {
         return value;
     }
 
+    /**
+     * Get the modifier prices derived from a snapshot, deriving them if the snapshot changed since they were last
+     * derived
+     * @param market The {@link MarketSnapshot} to price against
+     * @return The {@link DerivedPrices} of the snapshot
+     */
+    private DerivedPrices getDerivedPrices(@NonNull MarketSnapshot market) {
+        DerivedPrices current = this.derivedPrices.get();
+
+        if (current != null && current.version() == market.version()) {
+            return current;
+        }
+
+        // racing threads may both derive the same prices, which is harmless
+        DerivedPrices derived = new DerivedPrices(market, this.dataManager, MASTER_STARS);
+        if (current == null || current.version() < market.version()) {
+            this.derivedPrices.compareAndSet(current, derived);
+        }
+        return derived;
+    }
+
     /**
      * Calculates a very rough estimate of the value of an exotic armor piece
      * <p>
@@ -316,6 +518,140 @@ public class NetworthCalculator {
     public @NonNull Networth calculatePlayer(@NonNull JsonObject profile, @NonNull String uuid)
             throws MalformedProfileException, IllegalArgumentException {
 
+        // price every section against the same snapshot, even if the market refreshes partway through
+        return this.calculatePlayer(profile, uuid, this.marketManager.getSnapshot());
+    }
+
+    /**
+     * Calculates the networth of a player asynchronously, on the {@link CalculatorConfig#getAsyncExecutor()}
+     * @param profile The profile data of the profile to analyze (from an entry in (/skyblock/profiles)["profiles"])
+     * @param uuid The UUID of the player to analyze
+     * @return A future completed with the broken-down networth of the player
+     * @see NetworthCalculator#calculatePlayerAsync(JsonObject, String, Executor)
+     */
+    public @NonNull CompletableFuture<Networth> calculatePlayerAsync(@NonNull JsonObject profile,
+                                                                     @NonNull String uuid) {
+        return this.calculatePlayerAsync(profile, uuid, this.calculatorConfig.getAsyncExecutor());
+    }
+
+    /**
+     * Calculates the networth of a player asynchronously
+     * <p>
+     * The calling thread never blocks: if market data hasn't loaded yet, the calculation is deferred until it has.
+     * The future completes exceptionally with the same exceptions
+     * {@link NetworthCalculator#calculatePlayer(JsonObject, String)} throws, wrapped in a
+     * {@link CompletionException}.
+     * @param profile The profile data of the profile to analyze (from an entry in (/skyblock/profiles)["profiles"])
+     * @param uuid The UUID of the player to analyze
+     * @param executor The {@link Executor} to run the calculation on
+     * @return A future completed with the broken-down networth of the player
+     */
+    public @NonNull CompletableFuture<Networth> calculatePlayerAsync(@NonNull JsonObject profile, @NonNull String uuid,
+                                                                     @NonNull Executor executor) {
+        return this.marketManager.whenReady()
+            .thenApplyAsync(ignored -> {
+                try {
+                    return this.calculatePlayer(profile, uuid, this.marketManager.getSnapshot());
+                } catch (MalformedProfileException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor)
+            .toCompletableFuture();
+    }
+
+    /**
+     * Fetches the selected profile of a player from the Hypixel API and calculates their networth on it
+     * @param uuid The UUID of the player to analyze
+     * @return A future completed with the broken-down networth of the player
+     * @see NetworthCalculator#calculateByUuid(String, String)
+     */
+    public @NonNull CompletableFuture<Networth> calculateByUuid(@NonNull String uuid) {
+        return this.calculateByUuid(uuid, null);
+    }
+
+    /**
+     * Fetches the profiles of a player from the Hypixel API and calculates their networth on one of them
+     * <p>
+     * Concurrent calls for the same player and profile share a single fetch and calculation, and the result is
+     * reused for {@link CalculatorConfig#getProfileCacheTtl()}. Reused results are shared between callers, and must
+     * not be modified. Profiles are fetched within the API key's rate limit, and calculations run on the
+     * {@link CalculatorConfig#getAsyncExecutor()} once market data has loaded. The future completes exceptionally
+     * with an {@link IllegalArgumentException} if the player has no such profile.
+     * @param uuid The UUID of the player to analyze
+     * @param profileId The ID of the profile to analyze, or null for the player's selected profile
+     * @return A future completed with the broken-down networth of the player
+     */
+    public @NonNull CompletableFuture<Networth> calculateByUuid(@NonNull String uuid, String profileId) {
+        return this.networthCache.get(uuid, profileId, () -> this.hypixelClient.fetchProfiles(uuid)
+            .thenCombine(this.marketManager.whenReady(), (profiles, ignored) -> profiles)
+            .thenApplyAsync(profiles -> {
+                try {
+                    JsonObject profile = selectProfile(profiles, profileId);
+                    return this.calculatePlayer(profile, uuid, this.marketManager.getSnapshot());
+                } catch (MalformedProfileException e) {
+                    throw new CompletionException(e);
+                }
+            }, this.calculatorConfig.getAsyncExecutor()));
+    }
+
+    /**
+     * Pick a profile out of the profiles of a player
+     * @param profiles The entries of (/skyblock/profiles)["profiles"]
+     * @param profileId The ID of the profile to pick, or null for the selected profile
+     * @return The profile
+     * @throws IllegalArgumentException If the player has no such profile
+     */
+    private static @NonNull JsonObject selectProfile(@NonNull JsonArray profiles, String profileId) {
+        for (JsonElement element : profiles) {
+            JsonObject profile = element.getAsJsonObject();
+
+            if (profileId == null ? profile.has("selected") && profile.get("selected").getAsBoolean() :
+                profile.has("profile_id") &&
+                    profile.get("profile_id").getAsString().replace("-", "")
+                        .equalsIgnoreCase(profileId.replace("-", ""))) {
+                return profile;
+            }
+        }
+
+        // fall back to any profile if none is marked selected
+        if (profileId == null && !profiles.isEmpty()) {
+            return profiles.get(0).getAsJsonObject();
+        }
+
+        throw new IllegalArgumentException(profileId == null ? "Player has no SkyBlock profiles!" :
+            "Player has no SkyBlock profile \"" + profileId + "\"!");
+    }
+
+    /**
+     * Calculates the networth of many players concurrently, on the executor set in the {@link CalculatorConfig}
+     * <p>
+     * Requests are pulled from the given stream only as results are consumed, and every player is priced against the
+     * same market snapshot. Failed calculations are reported as a {@link NetworthBatch.Result} carrying the error.
+     * <pre>{@code
+     * try (Stream<NetworthBatch.Result> results = calculator.calculatePlayers(requests)) {
+     *     results.forEach(result -> ...);
+     * }
+     * }</pre>
+     * @param requests The players to analyze
+     * @return A stream of results, in the order they complete
+     */
+    public @NonNull Stream<NetworthBatch.Result> calculatePlayers(@NonNull Stream<NetworthBatch.Request> requests) {
+        NetworthBatch batch = new NetworthBatch(this, this.marketManager.getSnapshot(), requests.iterator(),
+            this.calculatorConfig.getBatchExecutor(), this.calculatorConfig.getBatchParallelism());
+
+        return batch.stream().onClose(requests::close);
+    }
+
+    /**
+     * Calculates the networth of a player against a given market snapshot
+     * @param profile The profile data of the profile to analyze (from an entry in (/skyblock/profiles)["profiles"])
+     * @param uuid The UUID of the player to analyze
+     * @param market The {@link MarketSnapshot} to price against
+     * @return The broken-down networth of the player, as a {@link Networth} object
+     */
+    @NonNull Networth calculatePlayer(@NonNull JsonObject profile, @NonNull String uuid, @NonNull MarketSnapshot market)
+            throws MalformedProfileException, IllegalArgumentException {
+
         // Make sure that the provided profile is valid
         if (!profile.has("members")) {
             LOGGER.error("Attempted to handle malformed profile object for {}!", uuid);
@@ -338,27 +674,81 @@ public class NetworthCalculator {
         }
         networth.setPurse(playerData.getAsJsonObject("currencies").get("coin_purse").getAsDouble());
 
+        if (this.calculatorConfig.isParallelSections()) {
+            this.calculateSectionsConcurrently(networth, playerData, market);
+            return networth;
+        }
+
         // Bags
-        networth.setSacks(this.calculateSacks(playerData));
-        networth.setAccessories(this.calculateAccessories(playerData));
-        networth.setFishingBag(this.calculateFishingBag(playerData));
+        networth.setSacks(this.calculateSacks(playerData, market));
+        networth.setAccessories(this.calculateAccessories(playerData, market));
+        networth.setFishingBag(this.calculateFishingBag(playerData, market));
 
         // Armor
-        networth.setWardrobe(this.calculateWardrobe(playerData));
+        networth.setWardrobe(this.calculateWardrobe(playerData, market));
 
         // Items
 
         // Other
-        networth.setEssence(this.calculateEssence(playerData));
+        networth.setEssence(this.calculateEssence(playerData, market));
 
         return networth;
     }
 
+    /**
+     * Decodes and values the independent sections of a player concurrently on the section executor, then merges them
+     * into their {@link Networth}
+     * @param networth The {@link Networth} to fill in
+     * @param playerData The member data of the player
+     * @param market The {@link MarketSnapshot} to price against
+     */
+    private void calculateSectionsConcurrently(@NonNull Networth networth, @NonNull JsonObject playerData,
+                                               @NonNull MarketSnapshot market) {
+        Executor executor = this.calculatorConfig.getSectionExecutor();
+
+        // Bags
+        CompletableFuture<Double> sacks =
+            CompletableFuture.supplyAsync(() -> this.calculateSacks(playerData, market), executor);
+        CompletableFuture<Double> accessories =
+            CompletableFuture.supplyAsync(() -> this.calculateAccessories(playerData, market), executor);
+        CompletableFuture<Double> fishingBag =
+            CompletableFuture.supplyAsync(() -> this.calculateFishingBag(playerData, market), executor);
+
+        // Other
+        CompletableFuture<Double> essence =
+            CompletableFuture.supplyAsync(() -> this.calculateEssence(playerData, market), executor);
+
+        // Armor, usually the largest section, is valued on this thread instead of idling until the others finish
+        networth.setWardrobe(this.calculateWardrobe(playerData, market));
+
+        networth.setSacks(join(sacks));
+        networth.setAccessories(join(accessories));
+        networth.setFishingBag(join(fishingBag));
+        networth.setEssence(join(essence));
+    }
+
+    /**
+     * Wait for a section to complete, rethrowing whatever it failed with
+     */
+    private static double join(@NonNull CompletableFuture<Double> section) {
+        try {
+            return section.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     // ================================
     //  BAGS
     // ================================
 
-    private double calculateSacks(@NonNull JsonObject playerData) {
+    private double calculateSacks(@NonNull JsonObject playerData, @NonNull MarketSnapshot market) {
         if (!playerData.has("inventory") || !playerData.getAsJsonObject("inventory").has("sacks_counts")) {
             return 0;
         }
@@ -370,7 +760,7 @@ public class NetworthCalculator {
         for (Map.Entry<String, JsonElement> e : sacks.entrySet()) { // iterate over ID:count pairs
             if (e.getValue().getAsInt() > 0) {
                 try {
-                    value += this.bazaarHandler.getMedianPrice(e.getKey()) * e.getValue().getAsInt();
+                    value += market.bazaar().getMedianPrice(e.getKey()) * e.getValue().getAsInt();
                 } catch (NoSuchProductException ignored) {
                 }
             }
@@ -379,7 +769,7 @@ public class NetworthCalculator {
         return value;
     }
 
-    private double calculateAccessories(@NonNull JsonObject playerData) {
+    private double calculateAccessories(@NonNull JsonObject playerData, @NonNull MarketSnapshot market) {
         if (!playerData.has("inventory") || !playerData.getAsJsonObject("inventory").has("bag_contents")) {
             return 0;
         }
@@ -388,25 +778,22 @@ public class NetworthCalculator {
             return 0;
         }
 
-        JsonArray accessoryBag = InventoryUtil.decodeInventory(playerData.getAsJsonObject("inventory")
+        List<Item> accessoryBag = ItemDecoder.decodeInventory(playerData.getAsJsonObject("inventory")
             .getAsJsonObject("bag_contents").getAsJsonObject("talisman_bag").get("data").getAsString());
         double value = 0;
 
-        for (JsonElement entryElement : accessoryBag) {
-            JsonObject entry = entryElement.getAsJsonObject();
-
-            if (!entry.has("id")) {
+        for (Item item : accessoryBag) {
+            if (item == null) {
                 continue; // this is an empty slot
             }
 
-            Item item = Item.fromAttributes(entry.get("count").getAsInt(), entry.getAsJsonObject("attributes"));
-            value += this.calculateItem(item);
+            value += this.calculateItem(item, market);
         }
 
         return value;
     }
 
-    private double calculateFishingBag(@NonNull JsonObject playerData) {
+    private double calculateFishingBag(@NonNull JsonObject playerData, @NonNull MarketSnapshot market) {
         if (!playerData.has("inventory") || !playerData.getAsJsonObject("inventory").has("bag_contents")) {
             return 0;
         }
@@ -415,17 +802,14 @@ public class NetworthCalculator {
             return 0;
         }
 
-        JsonArray fishingBag = InventoryUtil.decodeInventory(playerData.getAsJsonObject("inventory")
+        List<Item> fishingBag = ItemDecoder.decodeInventory(playerData.getAsJsonObject("inventory")
             .getAsJsonObject("bag_contents").getAsJsonObject("fishing_bag").get("data").getAsString());
         double value = 0;
 
-        for (JsonElement entryElement : fishingBag) {
-            JsonObject entry = entryElement.getAsJsonObject();
-
-            if (entry.has("attributes") && entry.has("count")) {
+        for (Item item : fishingBag) {
+            if (item != null) {
                 try {
-                    value += this.bazaarHandler.getMedianPrice(entry.getAsJsonObject("attributes")
-                        .getAsJsonObject("id").get("value").getAsString()) * entry.get("count").getAsInt();
+                    value += market.bazaar().getMedianPrice(item.getId()) * item.getCount();
                 } catch (NoSuchProductException ignored) {
                     // not all baits are on the bazaar!
                 }
@@ -439,20 +823,18 @@ public class NetworthCalculator {
     //  ARMOR
     // ================================
 
-    private double calculateWardrobe(@NonNull JsonObject playerData) {
+    private double calculateWardrobe(@NonNull JsonObject playerData, @NonNull MarketSnapshot market) {
         if (!playerData.has("inventory") || !playerData.getAsJsonObject("inventory").has("wardrobe_contents")) {
             return 0;
         }
 
-        JsonArray wardrobe = InventoryUtil.decodeInventory(playerData.getAsJsonObject("inventory")
+        List<Item> wardrobe = ItemDecoder.decodeInventory(playerData.getAsJsonObject("inventory")
             .getAsJsonObject("wardrobe_contents").get("data").getAsString());
         double value = 0;
 
-        for (JsonElement entryElement : wardrobe) {
-            JsonObject entry = entryElement.getAsJsonObject();
-
-            if (entry.has("attributes")) {
-                value += this.calculateItem(Item.fromAttributes(1, entry.getAsJsonObject("attributes")));
+        for (Item item : wardrobe) {
+            if (item != null) {
+                value += this.calculateItem(item, market);
             }
         }
 
@@ -467,7 +849,7 @@ public class NetworthCalculator {
     //  OTHER
     // ================================
 
-    private double calculateEssence(@NonNull JsonObject playerData) {
+    private double calculateEssence(@NonNull JsonObject playerData, @NonNull MarketSnapshot market) {
         JsonObject essence = playerData.getAsJsonObject("currencies").getAsJsonObject("essence");
 
         if (essence == null || essence.isJsonNull()) {
@@ -479,7 +861,7 @@ public class NetworthCalculator {
 
             // iterate over essence types
             for (Map.Entry<String, JsonElement> e : essence.entrySet()) {
-                value += this.bazaarHandler.getMedianPrice("ESSENCE_" + e.getKey()) *
+                value += market.bazaar().getMedianPrice("ESSENCE_" + e.getKey()) *
                     e.getValue().getAsJsonObject().get("current").getAsInt();
             }
             return value;
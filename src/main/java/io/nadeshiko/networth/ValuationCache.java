@@ -0,0 +1,195 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth;
+
+import io.nadeshiko.networth.item.ItemFingerprint;
+import lombok.NonNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of item valuations, keyed by {@link ItemFingerprint} and valid for a single market snapshot
+ * <p>
+ * Entries are evicted least recently used first. The cache is split into independently locked segments by key hash,
+ * so concurrent calculations rarely contend. Every entry belongs to the market snapshot it was priced against: the
+ * first lookup against a newer snapshot empties the segment it lands in, and entries priced against an older snapshot
+ * are never stored.
+ */
+public class ValuationCache {
+
+    /**
+     * The number of independently locked segments
+     */
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    /**
+     * Counters
+     */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a new ValuationCache
+     * @param maximumSize The maximum number of valuations to keep, at least one
+     */
+    public ValuationCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be at least 1, got " + maximumSize + "!");
+        }
+
+        int segmentSize = Math.max(1, maximumSize / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Look up a valuation
+     * @param key The fingerprint of the item
+     * @param version The {@link io.nadeshiko.networth.market.MarketSnapshot#version()} being priced against
+     * @return The cached value, or {@link Double#NaN} if none is cached for the given snapshot
+     */
+    public double get(@NonNull ItemFingerprint key, long version) {
+        Segment segment = this.segmentFor(key);
+        Double value;
+
+        synchronized (segment) {
+            segment.advance(version);
+            value = segment.version == version ? segment.get(key) : null;
+        }
+
+        if (value == null) {
+            this.misses.increment();
+            return Double.NaN;
+        }
+
+        this.hits.increment();
+        return value;
+    }
+
+    /**
+     * Store a valuation, unless a newer snapshot has already been priced against
+     * @param key The fingerprint of the item
+     * @param version The {@link io.nadeshiko.networth.market.MarketSnapshot#version()} the item was priced against
+     * @param value The value of the item
+     */
+    public void put(@NonNull ItemFingerprint key, long version, double value) {
+        Segment segment = this.segmentFor(key);
+
+        synchronized (segment) {
+            segment.advance(version);
+            if (segment.version == version) {
+                segment.put(key, value);
+            }
+        }
+    }
+
+    /**
+     * Remove every cached valuation. Counters are kept.
+     */
+    public void clear() {
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return The number of lookups that found a cached valuation
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that didn't find a cached valuation
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return The number of valuations evicted to stay within the maximum size
+     */
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * @return The share of lookups that found a cached valuation, between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = this.getHits();
+        long total = hits + this.getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return The number of cached valuations
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(@NonNull ItemFingerprint key) {
+        int hash = key.hashCode();
+        return this.segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * A single LRU segment. Guarded by its own monitor.
+     */
+    private class Segment extends LinkedHashMap<ItemFingerprint, Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+        private long version = Long.MIN_VALUE;
+
+        private Segment(int maximumSize) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+        }
+
+        /**
+         * Move this segment to a newer snapshot, dropping every valuation of the old one
+         */
+        private void advance(long version) {
+            if (version > this.version) {
+                this.clear();
+                this.version = version;
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ItemFingerprint, Double> eldest) {
+            if (this.size() > this.maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
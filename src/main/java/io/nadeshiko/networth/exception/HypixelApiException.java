@@ -0,0 +1,37 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.exception;
+
+import lombok.Getter;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when the Hypixel API answers a request with an error
+ */
+@Getter
+public class HypixelApiException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The HTTP status code of the response
+     */
+    private final int status;
+
+    public HypixelApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+}
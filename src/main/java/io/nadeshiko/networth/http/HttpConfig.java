@@ -0,0 +1,67 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.http;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Configuration of how HTTP requests are made
+ * <p>
+ * Create instances with {@link HttpConfig#builder()}; every option has a sensible default.
+ */
+@Getter
+@Builder
+public class HttpConfig {
+
+    /**
+     * The maximum time to wait for a connection to be established
+     */
+    @Builder.Default
+    private final Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * The maximum time to wait for the response headers of a request
+     */
+    @Builder.Default
+    private final Duration requestTimeout = Duration.ofSeconds(30);
+
+    /**
+     * How many times a request is retried after a network failure or a 502, 503 or 504 response
+     */
+    @Builder.Default
+    private final int maxRetries = 2;
+
+    /**
+     * How long to wait before the first retry. Every further retry waits twice as long as the one before.
+     */
+    @Builder.Default
+    private final Duration retryBackoff = Duration.ofMillis(500);
+
+    /**
+     * The User-Agent sent with every request
+     */
+    @Builder.Default
+    private final String userAgent = "NetworthCalculator/" + NetworthCalculator.VERSION;
+
+    /**
+     * @return A configuration with every option at its default
+     */
+    public static HttpConfig defaults() {
+        return HttpConfig.builder().build();
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.http;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * An HTTP transport built on {@link HttpClient}
+ * <p>
+ * Connections are kept alive and reused across requests to the same host, HTTP/2 is used where the server supports
+ * it, and responses are requested gzip-compressed and decompressed transparently while streaming. Requests failing
+ * with a network error or a 502, 503 or 504 response are retried with exponential backoff, see {@link HttpConfig}.
+ * <p>
+ * A transport is safe to share between threads, and should be: every transport holds its own connection pool.
+ */
+public class HttpTransport {
+
+    /**
+     * The size of the buffer responses are decompressed through
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Getter
+    private final HttpConfig config;
+
+    private final HttpClient client;
+
+    /**
+     * Create a new HttpTransport
+     * @param config The {@link HttpConfig} controlling timeouts and retries
+     */
+    public HttpTransport(@NonNull HttpConfig config) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(config.getConnectTimeout())
+            .build();
+    }
+
+    /**
+     * Launch a GET request, retrying as configured, and wait for the response headers
+     * @param url The URL to request
+     * @param headers Headers to include in the request, if any
+     * @return The {@link Response}, whose body must be closed after reading. Error responses are returned too, as
+     * APIs usually explain them in the body.
+     * @throws IOException If the request failed on its last attempt
+     * @throws InterruptedIOException If interrupted while waiting
+     */
+    public Response get(@NonNull String url, Map<String, String> headers) throws IOException {
+        HttpRequest request = this.buildRequest(url, headers);
+
+        try {
+            for (int attempt = 0; ; attempt++) {
+                HttpResponse<InputStream> response;
+                try {
+                    response = this.client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                } catch (IOException e) {
+                    if (attempt >= this.config.getMaxRetries()) {
+                        throw e;
+                    }
+                    this.logRetry(url, attempt, this.config.getMaxRetries(), e.toString());
+                    Thread.sleep(this.backoff(attempt).toMillis());
+                    continue;
+                }
+
+                if (attempt < this.config.getMaxRetries() && isRetryable(response.statusCode())) {
+                    response.body().close();
+                    this.logRetry(url, attempt, this.config.getMaxRetries(), "status " + response.statusCode());
+                    Thread.sleep(this.backoff(attempt).toMillis());
+                    continue;
+                }
+
+                return wrap(response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while requesting " + url);
+        }
+    }
+
+    /**
+     * Launch a GET request asynchronously, retrying as configured
+     * @param url The URL to request
+     * @param headers Headers to include in the request, if any
+     * @return A future completed with the {@link Response} once its headers arrive, or completed exceptionally with
+     * the {@link IOException} of the last attempt
+     */
+    public CompletableFuture<Response> getAsync(@NonNull String url, Map<String, String> headers) {
+        return this.getAsync(url, headers, this.config.getMaxRetries());
+    }
+
+    /**
+     * Launch a GET request asynchronously, retrying at most a given number of times
+     * @param url The URL to request
+     * @param headers Headers to include in the request, if any
+     * @param maxRetries How many times to retry the request, in place of {@link HttpConfig#getMaxRetries()}
+     * @return A future completed with the {@link Response} once its headers arrive, or completed exceptionally with
+     * the {@link IOException} of the last attempt
+     */
+    public CompletableFuture<Response> getAsync(@NonNull String url, Map<String, String> headers, int maxRetries) {
+        return this.attemptAsync(url, this.buildRequest(url, headers), 0, maxRetries);
+    }
+
+    private CompletableFuture<Response> attemptAsync(@NonNull String url, @NonNull HttpRequest request, int attempt,
+                                                     int maxRetries) {
+        return this.client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+            .handle((response, error) -> {
+                boolean retry = attempt < maxRetries && (error != null || isRetryable(response.statusCode()));
+
+                if (retry) {
+                    if (response != null) {
+                        closeQuietly(response.body());
+                    }
+                    this.logRetry(url, attempt, maxRetries, error != null ? unwrap(error).toString() :
+                        "status " + response.statusCode());
+
+                    return CompletableFuture.supplyAsync(() -> null,
+                            CompletableFuture.delayedExecutor(this.backoff(attempt).toMillis(), TimeUnit.MILLISECONDS))
+                        .thenCompose(ignored -> this.attemptAsync(url, request, attempt + 1, maxRetries));
+                }
+
+                if (error != null) {
+                    return CompletableFuture.<Response>failedFuture(unwrap(error));
+                }
+
+                try {
+                    return CompletableFuture.completedFuture(wrap(response));
+                } catch (IOException e) {
+                    return CompletableFuture.<Response>failedFuture(e);
+                }
+            })
+            .thenCompose(future -> future);
+    }
+
+    private HttpRequest buildRequest(@NonNull String url, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+            .GET()
+            .timeout(this.config.getRequestTimeout())
+            .header("Accept-Encoding", "gzip")
+            .header("User-Agent", this.config.getUserAgent());
+
+        // Add the headers to the request, if any were provided
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                builder.header(header.getKey(), header.getValue());
+            }
+        }
+        return builder.build();
+    }
+
+    private Duration backoff(int attempt) {
+        return this.config.getRetryBackoff().multipliedBy(1L << Math.min(attempt, 16));
+    }
+
+    private void logRetry(@NonNull String url, int attempt, int maxRetries, @NonNull String reason) {
+        NetworthCalculator.LOGGER.warn("Request to {} failed ({}), retrying ({}/{})", url, reason, attempt + 1,
+            maxRetries);
+    }
+
+    /**
+     * @return Whether a response status indicates a transient failure worth retrying
+     */
+    private static boolean isRetryable(int status) {
+        return status == 502 || status == 503 || status == 504;
+    }
+
+    /**
+     * Wrap a response, decompressing its body if the server compressed it
+     */
+    private static Response wrap(@NonNull HttpResponse<InputStream> response) throws IOException {
+        InputStream body = response.body();
+
+        boolean gzipped = response.headers().firstValue("Content-Encoding")
+            .map(encoding -> encoding.equalsIgnoreCase("gzip"))
+            .orElse(false);
+
+        try {
+            body = gzipped ? new GZIPInputStream(body, BUFFER_SIZE) : new BufferedInputStream(body, BUFFER_SIZE);
+        } catch (IOException e) {
+            closeQuietly(body);
+            throw e;
+        }
+
+        return new Response(response.statusCode(), response.headers(), body);
+    }
+
+    private static Throwable unwrap(@NonNull Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static void closeQuietly(@NonNull InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * A streamed response. Closing it closes the body, releasing the connection for reuse.
+     * @param status The status code returned
+     * @param headers The response headers
+     * @param body The decompressed response body
+     */
+    public record Response(int status, @NonNull HttpHeaders headers, @NonNull InputStream body) implements Closeable {
+
+        /**
+         * Read the rest of the body as UTF-8 text and close it
+         * @return The body
+         * @throws IOException If reading failed
+         */
+        public String bodyAsString() throws IOException {
+            try (InputStream body = this.body) {
+                return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.body.close();
+        }
+    }
+}
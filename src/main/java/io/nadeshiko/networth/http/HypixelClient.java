@@ -0,0 +1,211 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.http;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.exception.HypixelApiException;
+import io.nadeshiko.networth.exception.InvalidApiKeyException;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * A client for the keyed endpoints of the Hypixel API
+ * <p>
+ * Every request carries the API key in the {@code API-Key} header and is scheduled against the key's rate limit by a
+ * {@link RateLimiter}, so that requests are made as fast as the key allows without ever being rejected for exceeding
+ * it. Requests rejected anyway, i.e. because another client shares the key, are retried after the limit resets.
+ */
+public class HypixelClient {
+
+    /**
+     * A cheap keyed endpoint, requested to check that a key works
+     */
+    private static final String KEY_CHECK_ENDPOINT = "/counts";
+
+    /**
+     * How many times a request rejected for exceeding the rate limit is retried
+     */
+    private static final int MAX_RATE_LIMITED_RETRIES = 3;
+
+    private final String apiKey;
+    private final String apiUrl;
+    private final HttpTransport transport;
+
+    @Getter
+    private final RateLimiter rateLimiter = new RateLimiter();
+
+    /**
+     * Create a new HypixelClient
+     * @param apiKey The Hypixel API key to use
+     * @param apiUrl The base URL of the API, without a trailing slash, i.e. https://api.hypixel.net/v2
+     * @param transport The {@link HttpTransport} to make requests through
+     */
+    public HypixelClient(@NonNull String apiKey, @NonNull String apiUrl, @NonNull HttpTransport transport) {
+        this.apiKey = apiKey;
+        this.apiUrl = apiUrl;
+        this.transport = transport;
+    }
+
+    /**
+     * Check that the API key is accepted by the API. This also learns the key's rate limit.
+     * <p>
+     * Network failures aren't retried, so that an unreachable API is reported within a single connect timeout.
+     * @throws InvalidApiKeyException If the API rejected the key
+     * @throws IOException If the API couldn't be reached, so the key couldn't be checked
+     */
+    public void validateKey() throws InvalidApiKeyException, IOException {
+        join(this.attempt(KEY_CHECK_ENDPOINT, 0, 0));
+    }
+
+    /**
+     * Request a keyed endpoint, waiting for the rate limit to allow it if needed
+     * @param endpoint The endpoint to request, including any query, i.e. "/skyblock/profiles?uuid=..."
+     * @return The response
+     * @throws InvalidApiKeyException If the API rejected the key
+     * @throws IOException If the request failed, or the API answered with an error ({@link HypixelApiException})
+     */
+    public JsonObject get(@NonNull String endpoint) throws InvalidApiKeyException, IOException {
+        return join(this.getAsync(endpoint));
+    }
+
+    /**
+     * Request a keyed endpoint asynchronously, once the rate limit allows it
+     * @param endpoint The endpoint to request, including any query, i.e. "/skyblock/profiles?uuid=..."
+     * @return A future completed with the response, or completed exceptionally with an
+     * {@link InvalidApiKeyException} or an {@link IOException}
+     */
+    public CompletableFuture<JsonObject> getAsync(@NonNull String endpoint) {
+        return this.attempt(endpoint, 0, this.transport.getConfig().getMaxRetries());
+    }
+
+    /**
+     * Fetch the SkyBlock profiles of a player
+     * @param uuid The UUID of the player
+     * @return A future completed with the entries of (/skyblock/profiles)["profiles"], empty if the player has none
+     */
+    public CompletableFuture<JsonArray> fetchProfiles(@NonNull String uuid) {
+        return this.getAsync("/skyblock/profiles?uuid=" + uuid.replace("-", "")).thenApply(response -> {
+            JsonElement profiles = response.get("profiles");
+            return profiles != null && profiles.isJsonArray() ? profiles.getAsJsonArray() : new JsonArray();
+        });
+    }
+
+    /**
+     * Stop the rate limiter's background thread. Requests still waiting for the rate limit are cancelled.
+     */
+    public void shutdown() {
+        this.rateLimiter.shutdown();
+    }
+
+    /**
+     * @param attempt How many times the request was already rejected for exceeding the rate limit
+     * @param maxRetries How many times the transport retries the request after a network failure
+     */
+    private CompletableFuture<JsonObject> attempt(@NonNull String endpoint, int attempt, int maxRetries) {
+        String url = this.apiUrl + endpoint;
+
+        return this.rateLimiter.acquire()
+            .thenCompose(permit -> this.transport.getAsync(url, Map.of("API-Key", this.apiKey), maxRetries)
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        this.rateLimiter.release();
+                    } else {
+                        this.rateLimiter.update(response.status(), response.headers());
+                    }
+                }))
+            .thenCompose(response -> {
+                if (response.status() == 429 && attempt < MAX_RATE_LIMITED_RETRIES) {
+                    closeQuietly(response);
+                    NetworthCalculator.LOGGER.warn("Request to {} exceeded the rate limit, retrying after reset",
+                        endpoint);
+                    return this.attempt(endpoint, attempt + 1, maxRetries);
+                }
+
+                try {
+                    return CompletableFuture.completedFuture(read(response));
+                } catch (InvalidApiKeyException | IOException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            });
+    }
+
+    /**
+     * Wait for a response, rethrowing its failure as is
+     */
+    private static JsonObject join(@NonNull CompletableFuture<JsonObject> response)
+            throws InvalidApiKeyException, IOException {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof InvalidApiKeyException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Read a response, turning errors into exceptions
+     */
+    private static JsonObject read(@NonNull HttpTransport.Response response)
+            throws InvalidApiKeyException, IOException {
+        JsonObject body;
+        try (Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+            JsonElement parsed = JsonParser.parseReader(reader);
+            body = parsed.isJsonObject() ? parsed.getAsJsonObject() : new JsonObject();
+        } catch (JsonParseException e) {
+            if (response.status() == 200) {
+                throw new IOException("Malformed response from the Hypixel API", e);
+            }
+            body = new JsonObject(); // error pages aren't always JSON
+        }
+
+        if (response.status() == 200) {
+            return body;
+        }
+
+        // the API explains errors in the "cause" field
+        String cause = body.has("cause") ? body.get("cause").getAsString() : "HTTP " + response.status();
+        if (response.status() == 403) {
+            throw new InvalidApiKeyException("The Hypixel API rejected the API key: " + cause);
+        }
+        throw new HypixelApiException(response.status(), cause);
+    }
+
+    private static void closeQuietly(@NonNull HttpTransport.Response response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.http;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.util.ThreadUtil;
+import lombok.NonNull;
+
+import java.net.http.HttpHeaders;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Budgets requests against a rate limit advertised through {@code RateLimit-Limit}, {@code RateLimit-Remaining} and
+ * {@code RateLimit-Reset} response headers
+ * <p>
+ * Every request takes a permit with {@link RateLimiter#acquire()} and hands it back with the headers of its response.
+ * Requests only go out while the last known budget, less the requests still in flight, allows it. Once the budget is
+ * spent, further requests queue up in order and are released when it resets, so the limit is never exceeded.
+ * <p>
+ * Until the first response arrives the budget is unknown, and a single request goes out to learn it. Responses without
+ * rate limit headers lift the limit entirely.
+ */
+public class RateLimiter {
+
+    /**
+     * Added to every advertised reset, so that requests released on reset never race the server's own clock
+     */
+    private static final long RESET_MARGIN_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    /**
+     * How long to wait for a reset the server didn't advertise
+     */
+    private static final Duration UNKNOWN_RESET = Duration.ofMinutes(1);
+
+    private final ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(ThreadUtil.daemonFactory("RateLimit"));
+
+    /**
+     * Requests waiting for a permit, in order
+     */
+    private final Deque<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    /**
+     * The last known budget. Guarded by this.
+     */
+    private int limit = -1;
+    private int remaining = 1;
+    private long resetAt = 0; // System.nanoTime() at which the budget resets, zero if unknown
+    private int inFlight = 0;
+    private ScheduledFuture<?> scheduledRelease = null;
+    private boolean shutdown = false;
+
+    /**
+     * Take a permit to make a request. Every permit must be handed back with {@link RateLimiter#update} or
+     * {@link RateLimiter#release()}.
+     * @return A future completed once the request may be made, or cancelled if this limiter is shut down first
+     */
+    public CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        synchronized (this) {
+            if (this.shutdown) {
+                permit.cancel(false);
+                return permit;
+            }
+            this.waiting.add(permit);
+        }
+        this.drain();
+        return permit;
+    }
+
+    /**
+     * Hand back a permit with the response its request received, updating the budget
+     * @param status The status code of the response
+     * @param headers The headers of the response
+     */
+    public void update(int status, @NonNull HttpHeaders headers) {
+        OptionalLong limit = headers.firstValueAsLong("RateLimit-Limit");
+        OptionalLong remaining = headers.firstValueAsLong("RateLimit-Remaining");
+        OptionalLong reset = headers.firstValueAsLong("RateLimit-Reset");
+        if (reset.isEmpty()) {
+            reset = headers.firstValueAsLong("Retry-After");
+        }
+
+        synchronized (this) {
+            long now = System.nanoTime();
+            this.inFlight--;
+
+            if (limit.isPresent()) {
+                this.limit = (int) limit.getAsLong();
+            }
+
+            if (remaining.isPresent() || status == 429) {
+                int budget = status == 429 ? 0 : (int) remaining.getAsLong();
+                long resetAt = now + RESET_MARGIN_NANOS +
+                    (reset.isPresent() ? TimeUnit.SECONDS.toNanos(reset.getAsLong()) : UNKNOWN_RESET.toNanos());
+
+                if (this.resetAt == 0) {
+                    this.remaining = budget;
+                    this.resetAt = resetAt;
+                } else {
+                    // responses arrive out of order, so within a window the budget only ever shrinks
+                    this.remaining = Math.min(this.remaining, budget);
+                    if (resetAt - this.resetAt > 0) {
+                        this.resetAt = resetAt;
+                    }
+                }
+            } else {
+                this.remaining = Integer.MAX_VALUE; // no limit advertised
+                this.resetAt = 0;
+            }
+        }
+        this.drain();
+    }
+
+    /**
+     * Hand back a permit whose request failed without a response
+     */
+    public void release() {
+        synchronized (this) {
+            this.inFlight--;
+        }
+        this.drain();
+    }
+
+    /**
+     * Stop the thread releasing requests on reset, cancelling every request still waiting for a permit. Permits taken
+     * after this are cancelled right away.
+     */
+    public void shutdown() {
+        List<CompletableFuture<Void>> cancelled;
+
+        synchronized (this) {
+            this.shutdown = true;
+            cancelled = new ArrayList<>(this.waiting);
+            this.waiting.clear();
+        }
+
+        this.scheduler.shutdownNow();
+        cancelled.forEach(permit -> permit.cancel(false));
+    }
+
+    /**
+     * @return The number of requests allowed per window, or -1 if not known yet
+     */
+    public synchronized int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * @return The number of requests left in the current window, as of the latest response
+     */
+    public synchronized int getRemaining() {
+        return this.remaining;
+    }
+
+    /**
+     * @return The number of requests waiting for the budget to allow them
+     */
+    public synchronized int getQueued() {
+        return this.waiting.size();
+    }
+
+    /**
+     * Release waiting requests the budget allows, and schedule another release for the reset if some are left over
+     */
+    private void drain() {
+        List<CompletableFuture<Void>> released = new ArrayList<>();
+
+        synchronized (this) {
+            long now = System.nanoTime();
+
+            if (this.resetAt != 0 && now - this.resetAt >= 0) {
+                this.remaining = this.limit > 0 ? this.limit : 1;
+                this.resetAt = 0;
+            }
+
+            while (!this.waiting.isEmpty() && this.remaining - this.inFlight > 0) {
+                this.inFlight++;
+                released.add(this.waiting.poll());
+            }
+
+            // with requests in flight, their responses drain the queue; otherwise wait for the reset
+            if (!this.waiting.isEmpty() && this.inFlight == 0 && this.scheduledRelease == null) {
+                long delay = this.resetAt != 0 ? this.resetAt - now : UNKNOWN_RESET.toNanos();
+                NetworthCalculator.LOGGER.info("Rate limit reached, deferring {} requests for {}ms",
+                    this.waiting.size(), TimeUnit.NANOSECONDS.toMillis(delay));
+
+                this.scheduledRelease = this.scheduler.schedule(() -> {
+                    synchronized (this) {
+                        this.scheduledRelease = null;
+                    }
+                    this.drain();
+                }, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        // complete outside the lock, as completing runs the requests' dependent stages
+        released.forEach(permit -> permit.complete(null));
+    }
+}
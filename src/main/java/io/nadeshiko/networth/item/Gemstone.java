@@ -15,6 +15,9 @@ package io.nadeshiko.networth.item;
 
 import lombok.NonNull;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Representation of a gemstone applied on an item
  * @param type The {@link Type} of the gemstone
@@ -22,42 +25,108 @@ import lombok.NonNull;
  */
 public record Gemstone(Type type, Quality quality) {
 
+    /**
+     * Every gemstone, indexed by {@link Gemstone#pack()}, so that packed gemstones can be unpacked without allocating
+     */
+    private static final Gemstone[] BY_PACKED = new Gemstone[256];
+
+    /**
+     * Item IDs of every gemstone with a known type and quality, indexed by {@link Gemstone#pack()}
+     */
+    private static final String[] IDS = new String[256];
+
+    static {
+        for (int type = 0; type <= Type.values().length; type++) {
+            for (int quality = 0; quality <= Quality.values().length; quality++) {
+                Gemstone gemstone = new Gemstone(type == 0 ? null : Type.values()[type - 1],
+                    quality == 0 ? null : Quality.values()[quality - 1]);
+                BY_PACKED[gemstone.pack()] = gemstone;
+
+                if (type > 0 && quality > 0) {
+                    IDS[gemstone.pack()] = gemstone.quality.name() + "_" + gemstone.type.name() + "_GEM";
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the shared instance of a gemstone
+     * @param type The {@link Type} of the gemstone, or {@code null} if unknown
+     * @param quality The {@link Quality} of the gemstone, or {@code null} if unknown
+     * @return The gemstone of the given type and quality
+     */
+    public static Gemstone of(Type type, Quality quality) {
+        return BY_PACKED[pack(type, quality)];
+    }
+
+    /**
+     * Get the gemstone a packed value stands for
+     * @param packed A value returned by {@link Gemstone#pack()}
+     * @return The shared instance of the packed gemstone
+     */
+    public static Gemstone unpack(int packed) {
+        return BY_PACKED[packed & 0xFF];
+    }
+
+    /**
+     * Pack this gemstone into a byte, as {@code (type ordinal + 1) << 4 | (quality ordinal + 1)}, zero standing for an
+     * unknown type or quality
+     * @return The packed gemstone, between 0 and 255
+     */
+    public int pack() {
+        return pack(this.type, this.quality);
+    }
+
+    private static int pack(Type type, Quality quality) {
+        return (type == null ? 0 : type.ordinal() + 1) << 4 | (quality == null ? 0 : quality.ordinal() + 1);
+    }
+
+    /**
+     * Sort a range of packed gemstones by type, then quality, comparing them as unsigned bytes
+     * @param gemstones Gemstones packed by {@link Gemstone#pack()}
+     * @param from The first index to sort
+     * @param to The index after the last index to sort
+     */
+    public static void sort(byte @NonNull [] gemstones, int from, int to) {
+        for (int i = from + 1; i < to; i++) { // items only have a handful of gemstones
+            byte gemstone = gemstones[i];
+            int j = i;
+            while (j > from && (gemstones[j - 1] & 0xFF) > (gemstone & 0xFF)) {
+                gemstones[j] = gemstones[j - 1];
+                j--;
+            }
+            gemstones[j] = gemstone;
+        }
+    }
+
     /**
      * Create a new {@link Gemstone} instance given the item ID of a gemstone
      * @param id The item ID of a gemstone, such as FLAWED_JASPER_GEM
      * @return A new {@link Gemstone} instance for the given gemstone item ID
      */
     public static Gemstone fromId(@NonNull String id) {
-        return new Gemstone(Type.of(id.split("_")[0]), Quality.of(id.split("_")[1]));
+        return of(Type.of(id.split("_")[1]), Quality.of(id.split("_")[0]));
     }
 
     /**
-     * @return The item ID of this gemstone, i.e. FLAWED_JASPER_GEM
+     * @return The item ID of this gemstone, i.e. FLAWED_JASPER_GEM, or {@code null} if its type or quality is unknown
      */
     public String getId() {
-        return this.quality.name() + "_" + this.type.name() + "_GEM";
+        return IDS[this.pack()];
     }
 
     /**
-     * @return A friendly String representation of this Gemstone, such as "Fine Sapphire Gemstone"
+     * @return A friendly String representation of this Gemstone, such as "Fine Sapphire Gemstone", with "Unknown" in
+     * place of an unknown type or quality
      */
     @Override
     public String toString() {
-        return this.quality.name().charAt(0) + this.quality.name().substring(1).toLowerCase() + " " +
-            this.type.name().charAt(0) + this.type.name().substring(1).toLowerCase() + " Gemstone";
+        return friendlyName(this.quality) + " " + friendlyName(this.type) + " Gemstone";
     }
 
-    /**
-     * Compares this {@link Gemstone} instance to another object
-     * @param obj   the reference object with which to compare.
-     * @return Whether the two objects are equivalent
-     */
-    @Override
-    public boolean equals(Object obj) {
-        if (obj instanceof Gemstone gem) {
-            return this.getId().equals(gem.getId());
-        }
-        return false;
+    private static String friendlyName(Enum<?> constant) {
+        return constant == null ? "Unknown" :
+            constant.name().charAt(0) + constant.name().substring(1).toLowerCase();
     }
 
     /**
@@ -77,12 +146,40 @@ public record Gemstone(Type type, Quality quality) {
         ONYX,
         PERIDOT;
 
+        /**
+         * A map of upper-case name -> type, so that unknown names can be rejected without throwing
+         */
+        private static final Map<String, Type> BY_NAME = new HashMap<>();
+
+        private static final Type[] VALUES = values();
+
+        static {
+            for (Type type : VALUES) {
+                BY_NAME.put(type.name(), type);
+            }
+        }
+
         public static Type of(String type) {
-            try {
-                return Type.valueOf(type.toUpperCase());
-            } catch (Exception e) {
-                return null;
+            return type == null ? null : BY_NAME.get(type.toUpperCase());
+        }
+
+        /**
+         * Find the type a gemstone slot is named after, without splitting the slot name
+         * @param slot The name of a gemstone slot, i.e. JADE_0 or COMBAT_0
+         * @return The type of the slot, or {@code null} if the slot isn't named after a type
+         */
+        public static Type ofSlot(@NonNull String slot) {
+            int end = slot.indexOf('_');
+            if (end < 0) {
+                end = slot.length();
+            }
+
+            for (Type type : VALUES) {
+                if (type.name().length() == end && slot.regionMatches(true, 0, type.name(), 0, end)) {
+                    return type;
+                }
             }
+            return null;
         }
     }
 
@@ -96,12 +193,19 @@ public record Gemstone(Type type, Quality quality) {
         FLAWLESS,
         PERFECT;
 
-        public static Quality of(String rarity) {
-            try {
-                return Quality.valueOf(rarity.toUpperCase());
-            } catch (Exception e) {
-                return null;
+        /**
+         * A map of upper-case name -> quality, so that unknown names can be rejected without throwing
+         */
+        private static final Map<String, Quality> BY_NAME = new HashMap<>();
+
+        static {
+            for (Quality quality : values()) {
+                BY_NAME.put(quality.name(), quality);
             }
         }
+
+        public static Quality of(String rarity) {
+            return rarity == null ? null : BY_NAME.get(rarity.toUpperCase());
+        }
     }
 }
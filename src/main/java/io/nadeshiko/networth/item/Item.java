@@ -17,21 +17,42 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
-import dev.dewy.nbt.tags.collection.CompoundTag;
-import io.nadeshiko.networth.NetworthCalculator;
-import io.nadeshiko.networth.util.InventoryUtil;
-import lombok.Data;
+import io.nadeshiko.networth.util.Interner;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
 
-import java.io.ByteArrayInputStream;
 import java.util.*;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Parsed representation of a SkyBlock item and its modifiers
+ * <p>
+ * Enchantments, gemstones and unlocked gemstone slots are stored as primitive arrays rather than collections:
+ * enchantments as (name ordinal, level) pairs sorted by ordinal, gemstones as {@link Gemstone#pack() packed} bytes
+ * {@link Gemstone#sort sorted} by type then quality, and slots as name ordinals sorted by ordinal, all names being
+ * interned in {@link Item#NAMES}. As every array is kept sorted, items are equal no matter the order their
+ * enchantments, gemstones and slots were added in. Reading them by index, comparing and hashing items never
+ * allocates.
  */
-@Data
+@Getter
+@RequiredArgsConstructor
 public class Item {
+
+    /**
+     * Enchantment and gemstone slot names, interned across every item so they can be stored as ordinals
+     */
+    public static final Interner NAMES = new Interner();
+
+    /**
+     * Item IDs, reforges and dyes, interned apart from {@link Item#NAMES} so that tables indexed by enchantment or
+     * slot ordinal stay small
+     */
+    public static final Interner IDS = new Interner();
+
+    private static final int[] NO_INTS = new int[0];
+    private static final byte[] NO_BYTES = new byte[0];
+
     private final int count;
     private final String id;
 
@@ -46,31 +67,51 @@ public class Item {
     private final boolean dungeonized;
     private final int upgradeLevel;
 
-    private final Map<String, Integer> enchantments = new HashMap<>();
-    private final List<Gemstone> gemstones = new ArrayList<>();
-    private final List<String> unlockedGemstoneSlots = new ArrayList<>();
+    /**
+     * Enchantments as (name ordinal, level) pairs sorted by ordinal, in the first {@code 2 * enchantmentCount} ints
+     */
+    @Getter(AccessLevel.NONE)
+    private int[] enchantments = NO_INTS;
+    private int enchantmentCount = 0;
+
+    /**
+     * {@link Gemstone#pack() Packed} gemstones {@link Gemstone#sort sorted} by type then quality, in the first
+     * {@code gemstoneCount} bytes
+     */
+    @Getter(AccessLevel.NONE)
+    private byte[] gemstones = NO_BYTES;
+    private int gemstoneCount = 0;
+
+    /**
+     * Unlocked gemstone slot name ordinals sorted by ordinal, in the first {@code unlockedGemstoneSlotCount} ints
+     */
+    @Getter(AccessLevel.NONE)
+    private int[] unlockedGemstoneSlots = NO_INTS;
+    private int unlockedGemstoneSlotCount = 0;
 
     public static Item fromAttributes(int count, @NonNull JsonObject attributes) {
+        int hotPotatoCount = attributes.has("hot_potato_count") ? value(attributes, "hot_potato_count").getAsInt() : 0;
+
         Item parsedItem = new Item(
             count,
-            attributes.getAsJsonObject("id").get("value").getAsString(),
-            attributes.has("hot_potato_count") ? Math.min(attributes.getAsJsonObject("hot_potato_count").get("value").getAsInt(), 10) : 0,
-            attributes.has("hot_potato_count") ? Math.max(attributes.getAsJsonObject("hot_potato_count").get("value").getAsInt() - 10, 0) : 0,
+            value(attributes, "id").getAsString(),
+            Math.min(hotPotatoCount, 10),
+            Math.max(hotPotatoCount - 10, 0),
             attributes.has("art_of_war_count"),
             attributes.has("artOfPeaceApplied"),
             attributes.has("rarity_upgrades"),
             attributes.has("talisman_enrichment"),
-            attributes.has("modifier") ? attributes.getAsJsonObject("modifier").get("value").getAsString() : null,
-            attributes.has("dye_item") ? attributes.getAsJsonObject("dye_item").get("value").getAsString() : null,
+            attributes.has("modifier") ? value(attributes, "modifier").getAsString() : null,
+            attributes.has("dye_item") ? value(attributes, "dye_item").getAsString() : null,
             attributes.has("dungeon_item"),
-            attributes.has("upgrade_level") ? attributes.getAsJsonObject("upgrade_level").get("value").getAsInt() : 0
+            attributes.has("upgrade_level") ? value(attributes, "upgrade_level").getAsInt() : 0
         );
 
         // Enchants
         if (attributes.has("enchantments")) {
             JsonObject rawEnchantments = attributes.getAsJsonObject("enchantments").getAsJsonObject("value");
             for (Map.Entry<String, JsonElement> entry : rawEnchantments.entrySet()) {
-                parsedItem.enchantments.put(entry.getKey(), entry.getValue().getAsJsonObject().get("value").getAsInt());
+                parsedItem.putEnchantment(entry.getKey(), entry.getValue().getAsJsonObject().get("value").getAsInt());
             }
         }
 
@@ -82,7 +123,7 @@ public class Item {
             if (gems.has("unlocked_slots")) {
                 JsonArray unlockedSlots = gems.getAsJsonObject("unlocked_slots").getAsJsonArray("value");
                 for (JsonElement slot : unlockedSlots) {
-                    parsedItem.unlockedGemstoneSlots.add(slot.getAsJsonObject().get("value").getAsString());
+                    parsedItem.addUnlockedGemstoneSlot(slot.getAsJsonObject().get("value").getAsString());
                 }
             }
 
@@ -92,129 +133,335 @@ public class Item {
                     continue;
                 }
 
-                String type = entry.getKey().split("_")[0];
-
-                if (Gemstone.Type.of(type) != null) { // handle simple slots like jade, topaz, aquamarine, etc.
-                    if (entry.getValue().getAsJsonObject().get("value") instanceof JsonPrimitive) {
-                        parsedItem.gemstones.add(new Gemstone(
-                            Gemstone.Type.of(type),
-                            Gemstone.Quality.of(entry.getValue().getAsJsonObject().get("value").getAsString())
-                        ));
-                    } else {
-                        parsedItem.gemstones.add(new Gemstone(
-                            Gemstone.Type.of(type),
-                            Gemstone.Quality.of(entry.getValue().getAsJsonObject().getAsJsonObject("value")
-                                .getAsJsonObject("quality").get("value").getAsString())
-                        ));
-                    }
-                } else { // handle complex slots like combat, defensive, offensive, universal, etc.
-                    if (entry.getValue().getAsJsonObject().get("value") instanceof JsonPrimitive) {
-                        parsedItem.gemstones.add(new Gemstone(
-                            Gemstone.Type.of(gems.get(entry.getKey() + "_gem").getAsJsonObject().get("value").getAsString()),
-                            Gemstone.Quality.of(entry.getValue().getAsJsonObject().get("value").getAsString())
-                        ));
-                    } else {
-                        parsedItem.gemstones.add(new Gemstone(
-                            Gemstone.Type.of(gems.get(entry.getKey() + "_gem").getAsJsonObject().get("value").getAsString()),
-                            Gemstone.Quality.of(entry.getValue().getAsJsonObject().getAsJsonObject("value")
-                                .getAsJsonObject("quality").get("value").getAsString())
-                        ));
-                    }
+                // simple slots like jade, topaz, aquamarine, etc. are named after their type
+                Gemstone.Type type = Gemstone.Type.ofSlot(entry.getKey());
+
+                if (type == null) { // handle complex slots like combat, defensive, offensive, universal, etc.
+                    type = Gemstone.Type.of(value(gems, entry.getKey() + "_gem").getAsString());
                 }
+
+                JsonElement value = entry.getValue().getAsJsonObject().get("value");
+                String quality = value instanceof JsonPrimitive ? value.getAsString() :
+                    value.getAsJsonObject().getAsJsonObject("quality").get("value").getAsString();
+
+                parsedItem.addGemstone(Gemstone.of(type, Gemstone.Quality.of(quality)));
             }
         }
 
         return parsedItem;
     }
 
-    public static Item fromBytes(@NonNull String bytes) {
-        JsonObject item;
-
-        try {
-            byte[] decodedData = Base64.getDecoder().decode(bytes);
-            GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(decodedData));
-            CompoundTag parsedNbt = InventoryUtil.NBT.fromByteArray(gzipInputStream.readAllBytes());
-            item = parsedNbt.toJson(0, InventoryUtil.NBT.getTypeRegistry());
-        } catch (Exception e) {
-            NetworthCalculator.LOGGER.error("Failed to decode item data!", e);
-            return null;
-        }
-
-        item = item.getAsJsonObject("value").getAsJsonObject("i").getAsJsonArray("value")
-            .get(0).getAsJsonObject().getAsJsonObject("value");
-
-        JsonObject attributes = item.getAsJsonObject("tag").getAsJsonObject("value")
-            .getAsJsonObject("ExtraAttributes").getAsJsonObject("value");
+    /**
+     * Get the value of an NBT tag, as converted to JSON
+     */
+    private static JsonElement value(@NonNull JsonObject compound, @NonNull String name) {
+        return compound.getAsJsonObject(name).get("value");
+    }
 
-        return fromAttributes(item.getAsJsonObject("Count").get("value").getAsInt(), attributes);
+    public static Item fromBytes(@NonNull String bytes) {
+        return ItemDecoder.decodeItem(bytes);
     }
 
+    /**
+     * Compares this item to another item
+     * @param that The item to compare to
+     * @return A score from 0 to 1 of how similar the two items are, 1 being identical
+     * @deprecated Use {@link ItemSimilarity#similarity(Item, Item)}, which also accounts for gemstones
+     */
+    @Deprecated
     public double compareTo(@NonNull Item that) {
-        if (!this.id.equals(that.id)) {
-            return 0; // completely different item
-        }
+        return ItemSimilarity.standard().similarity(this, that);
+    }
 
-        double score = 1;
+    // ================================
+    //  ENCHANTMENTS
+    // ================================
 
-        if (!Objects.equals(this.reforge, that.reforge)) {
-            score -= 0.005;
-        }
-        if (this.hotPotatoBooks != that.hotPotatoBooks) {
-            score -= (Math.abs(this.hotPotatoBooks - that.hotPotatoBooks)) * 0.001;
-        }
-        if (this.fumingPotatoBooks != that.fumingPotatoBooks) {
-            score -= (Math.abs(this.fumingPotatoBooks - that.fumingPotatoBooks)) * 0.012;
+    /**
+     * Set the level of an enchantment, adding it if the item doesn't have it yet
+     * @param name The name of the enchantment, i.e. ultimate_chimera
+     * @param level The level of the enchantment
+     */
+    public void putEnchantment(@NonNull String name, int level) {
+        int ordinal = NAMES.intern(name);
+        int index = this.findEnchantment(ordinal);
+
+        if (index >= 0) {
+            this.enchantments[2 * index + 1] = level;
+            return;
         }
-        if (this.recombobulated != that.recombobulated) {
-            score -= 0.03;
+
+        index = -index - 1;
+        if (2 * this.enchantmentCount + 2 > this.enchantments.length) {
+            this.enchantments = Arrays.copyOf(this.enchantments, Math.max(8, this.enchantments.length * 2));
         }
-        if (this.artOfPeace != that.artOfPeace) {
-            score -= 0.075;
+        System.arraycopy(this.enchantments, 2 * index, this.enchantments, 2 * index + 2,
+            2 * (this.enchantmentCount - index));
+        this.enchantments[2 * index] = ordinal;
+        this.enchantments[2 * index + 1] = level;
+        this.enchantmentCount++;
+    }
+
+    /**
+     * Replace every enchantment of this item, taking ownership of the array
+     * @param enchantments (name ordinal, level) pairs in any order, without repeated names
+     * @param count The number of pairs in the array
+     */
+    void setEnchantments(int @NonNull [] enchantments, int count) {
+        // insertion sort, as items carry few enchantments
+        for (int i = 1; i < count; i++) {
+            int ordinal = enchantments[2 * i];
+            int level = enchantments[2 * i + 1];
+            int j = i - 1;
+            while (j >= 0 && enchantments[2 * j] > ordinal) {
+                enchantments[2 * j + 2] = enchantments[2 * j];
+                enchantments[2 * j + 3] = enchantments[2 * j + 1];
+                j--;
+            }
+            enchantments[2 * j + 2] = ordinal;
+            enchantments[2 * j + 3] = level;
         }
-        if (this.enriched != that.enriched) {
-            score -= 0.02;
+
+        this.enchantments = enchantments;
+        this.enchantmentCount = count;
+    }
+
+    /**
+     * @param index The index of an enchantment, from 0 to {@link Item#getEnchantmentCount()}, in ordinal order
+     * @return The {@link Item#NAMES} ordinal of the enchantment's name
+     */
+    public int getEnchantmentOrdinal(int index) {
+        Objects.checkIndex(index, this.enchantmentCount);
+        return this.enchantments[2 * index];
+    }
+
+    /**
+     * @param index The index of an enchantment, from 0 to {@link Item#getEnchantmentCount()}, in ordinal order
+     * @return The name of the enchantment
+     */
+    public String getEnchantmentName(int index) {
+        return NAMES.name(this.getEnchantmentOrdinal(index));
+    }
+
+    /**
+     * @param index The index of an enchantment, from 0 to {@link Item#getEnchantmentCount()}, in ordinal order
+     * @return The level of the enchantment
+     */
+    public int getEnchantmentLevel(int index) {
+        Objects.checkIndex(index, this.enchantmentCount);
+        return this.enchantments[2 * index + 1];
+    }
+
+    public boolean hasEnchantment(@NonNull String id) {
+        int ordinal = NAMES.find(id);
+        return ordinal >= 0 && this.findEnchantment(ordinal) >= 0;
+    }
+
+    public int getEnchantment(@NonNull String id) {
+        int ordinal = NAMES.find(id);
+        int index = ordinal < 0 ? -1 : this.findEnchantment(ordinal);
+        return index < 0 ? 0 : this.enchantments[2 * index + 1];
+    }
+
+    /**
+     * @return A new, unmodifiable map of enchantment name -> level. Prefer the index-based accessors, which don't
+     * allocate.
+     */
+    public Map<String, Integer> getEnchantments() {
+        Map<String, Integer> enchantments = new LinkedHashMap<>();
+        for (int i = 0; i < this.enchantmentCount; i++) {
+            enchantments.put(this.getEnchantmentName(i), this.enchantments[2 * i + 1]);
         }
-        if (!Objects.equals(this.dye, that.dye)) {
-            if (this.dye == null || that.dye == null) {
-                score -= 0.09; // one item is dyed the other isn't
+        return Collections.unmodifiableMap(enchantments);
+    }
+
+    /**
+     * Binary search the enchantments for a name ordinal
+     * @return The index of the enchantment, or {@code -(insertion point) - 1} if the item doesn't have it
+     */
+    private int findEnchantment(int ordinal) {
+        int low = 0;
+        int high = this.enchantmentCount - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int candidate = this.enchantments[2 * middle];
+
+            if (candidate < ordinal) {
+                low = middle + 1;
+            } else if (candidate > ordinal) {
+                high = middle - 1;
             } else {
-                score -= 0.075; // the items are both dyed, but with different dyes
+                return middle;
             }
         }
-        if (this.upgradeLevel != that.upgradeLevel) {
-            score -= (Math.abs(this.upgradeLevel - that.upgradeLevel)) * 0.035;
+
+        return -(low + 1);
+    }
+
+    // ================================
+    //  GEMSTONES
+    // ================================
+
+    /**
+     * Add a gemstone to this item, keeping the gemstones sorted
+     * @param gemstone The {@link Gemstone} applied
+     */
+    public void addGemstone(@NonNull Gemstone gemstone) {
+        if (this.gemstoneCount == this.gemstones.length) {
+            this.gemstones = Arrays.copyOf(this.gemstones, Math.max(4, this.gemstones.length * 2));
         }
+        this.gemstones[this.gemstoneCount++] = (byte) gemstone.pack();
+        Gemstone.sort(this.gemstones, 0, this.gemstoneCount); // only moves the new gemstone into place
+    }
 
-        // Enchantments
-        for (Map.Entry<String, Integer> entry : this.enchantments.entrySet()) {
-            String enchantment = entry.getKey();
-            Integer level = entry.getValue();
+    /**
+     * Replace every gemstone of this item, taking ownership of the array
+     * @param gemstones {@link Gemstone#pack() Packed} gemstones in any order
+     * @param count The number of gemstones in the array
+     */
+    void setGemstones(byte @NonNull [] gemstones, int count) {
+        Gemstone.sort(gemstones, 0, count);
+        this.gemstones = gemstones;
+        this.gemstoneCount = count;
+    }
 
-            if (!that.hasEnchantment(enchantment)) {
-                score -= 0.05; // this item has an enchantment that the other doesn't
-            } else if (that.getEnchantment(enchantment) != level) {
-                // the items have different enchantment levels
-                score -= (Math.abs(level - that.getEnchantment(enchantment))) * 0.02;
-            }
+    /**
+     * @param index The index of a gemstone, from 0 to {@link Item#getGemstoneCount()}
+     * @return The gemstone, {@link Gemstone#pack() packed}
+     */
+    public int getPackedGemstone(int index) {
+        Objects.checkIndex(index, this.gemstoneCount);
+        return this.gemstones[index] & 0xFF;
+    }
+
+    /**
+     * @param index The index of a gemstone, from 0 to {@link Item#getGemstoneCount()}
+     * @return The shared instance of the gemstone
+     */
+    public Gemstone getGemstone(int index) {
+        return Gemstone.unpack(this.getPackedGemstone(index));
+    }
+
+    /**
+     * @return A new, unmodifiable list of the gemstones of this item, sorted by type then quality. Prefer the
+     * index-based accessors, which don't allocate.
+     */
+    public List<Gemstone> getGemstones() {
+        Gemstone[] gemstones = new Gemstone[this.gemstoneCount];
+        for (int i = 0; i < gemstones.length; i++) {
+            gemstones[i] = this.getGemstone(i);
         }
-        for (Map.Entry<String, Integer> entry : that.enchantments.entrySet()) {
-            if (!this.hasEnchantment(entry.getKey())) {
-                score -= 0.05; // the other item has an enchantment that this item doesn't
-            }
+        return List.of(gemstones);
+    }
+
+    // ================================
+    //  GEMSTONE SLOTS
+    // ================================
+
+    /**
+     * Add an unlocked gemstone slot to this item, keeping the slots sorted
+     * @param slot The name of the slot, i.e. COMBAT_0
+     */
+    public void addUnlockedGemstoneSlot(@NonNull String slot) {
+        if (this.unlockedGemstoneSlotCount == this.unlockedGemstoneSlots.length) {
+            this.unlockedGemstoneSlots = Arrays.copyOf(this.unlockedGemstoneSlots,
+                Math.max(4, this.unlockedGemstoneSlots.length * 2));
         }
 
-        // Gemstones
-        // TODO
+        // insert in place, items only have a handful of slots
+        int ordinal = NAMES.intern(slot);
+        int index = this.unlockedGemstoneSlotCount++;
+        while (index > 0 && this.unlockedGemstoneSlots[index - 1] > ordinal) {
+            this.unlockedGemstoneSlots[index] = this.unlockedGemstoneSlots[index - 1];
+            index--;
+        }
+        this.unlockedGemstoneSlots[index] = ordinal;
+    }
 
-        return Math.max(0, score);
+    /**
+     * Replace every unlocked gemstone slot of this item, taking ownership of the array
+     * @param slots {@link Item#NAMES} ordinals of the slot names, in any order
+     * @param count The number of slots in the array
+     */
+    void setUnlockedGemstoneSlots(int @NonNull [] slots, int count) {
+        Arrays.sort(slots, 0, count);
+        this.unlockedGemstoneSlots = slots;
+        this.unlockedGemstoneSlotCount = count;
     }
 
-    public boolean hasEnchantment(@NonNull String id) {
-        return this.enchantments.containsKey(id);
+    /**
+     * @param index The index of an unlocked slot, from 0 to {@link Item#getUnlockedGemstoneSlotCount()}
+     * @return The {@link Item#NAMES} ordinal of the slot's name
+     */
+    public int getUnlockedGemstoneSlotOrdinal(int index) {
+        Objects.checkIndex(index, this.unlockedGemstoneSlotCount);
+        return this.unlockedGemstoneSlots[index];
     }
 
-    public int getEnchantment(@NonNull String id) {
-        return this.enchantments.getOrDefault(id, 0);
+    /**
+     * @param index The index of an unlocked slot, from 0 to {@link Item#getUnlockedGemstoneSlotCount()}
+     * @return The name of the slot
+     */
+    public String getUnlockedGemstoneSlot(int index) {
+        return NAMES.name(this.getUnlockedGemstoneSlotOrdinal(index));
+    }
+
+    /**
+     * @return A new, unmodifiable list of the unlocked gemstone slots of this item, sorted by {@link Item#NAMES}
+     * ordinal. Prefer the index-based accessors, which don't allocate.
+     */
+    public List<String> getUnlockedGemstoneSlots() {
+        String[] slots = new String[this.unlockedGemstoneSlotCount];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = this.getUnlockedGemstoneSlot(i);
+        }
+        return List.of(slots);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof Item that &&
+            this.count == that.count &&
+            this.hotPotatoBooks == that.hotPotatoBooks &&
+            this.fumingPotatoBooks == that.fumingPotatoBooks &&
+            this.artOfWar == that.artOfWar &&
+            this.artOfPeace == that.artOfPeace &&
+            this.recombobulated == that.recombobulated &&
+            this.enriched == that.enriched &&
+            this.dungeonized == that.dungeonized &&
+            this.upgradeLevel == that.upgradeLevel &&
+            this.id.equals(that.id) &&
+            Objects.equals(this.reforge, that.reforge) &&
+            Objects.equals(this.dye, that.dye) &&
+            Arrays.equals(this.enchantments, 0, 2 * this.enchantmentCount,
+                that.enchantments, 0, 2 * that.enchantmentCount) &&
+            Arrays.equals(this.gemstones, 0, this.gemstoneCount, that.gemstones, 0, that.gemstoneCount) &&
+            Arrays.equals(this.unlockedGemstoneSlots, 0, this.unlockedGemstoneSlotCount,
+                that.unlockedGemstoneSlots, 0, that.unlockedGemstoneSlotCount);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.id.hashCode();
+        hash = 31 * hash + this.count;
+        hash = 31 * hash + this.hotPotatoBooks;
+        hash = 31 * hash + this.fumingPotatoBooks;
+        hash = 31 * hash + this.upgradeLevel;
+        hash = 31 * hash + ((this.artOfWar ? 1 : 0) | (this.artOfPeace ? 2 : 0) | (this.recombobulated ? 4 : 0) |
+            (this.enriched ? 8 : 0) | (this.dungeonized ? 16 : 0));
+        hash = 31 * hash + Objects.hashCode(this.reforge);
+        hash = 31 * hash + Objects.hashCode(this.dye);
+        for (int i = 0; i < 2 * this.enchantmentCount; i++) {
+            hash = 31 * hash + this.enchantments[i];
+        }
+        for (int i = 0; i < this.gemstoneCount; i++) {
+            hash = 31 * hash + this.gemstones[i];
+        }
+        for (int i = 0; i < this.unlockedGemstoneSlotCount; i++) {
+            hash = 31 * hash + this.unlockedGemstoneSlots[i];
+        }
+        return hash;
     }
 
     @Override
@@ -223,7 +470,7 @@ public class Item {
             "\nReforge: " + (this.reforge == null ? "(none)" : this.reforge) +
             "\nRecombobulated: " + (this.recombobulated ? "yes" : "no") +
             "\nHPBs: " + this.hotPotatoBooks + ", FPBs: " + this.fumingPotatoBooks +
-            "\nGemstones: " + this.gemstones +
-            "\nEnchantments: " + this.enchantments;
+            "\nGemstones: " + this.getGemstones() +
+            "\nEnchantments: " + this.getEnchantments();
     }
 }
@@ -0,0 +1,546 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.item;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decodes base64-encoded, gzipped NBT item data straight into {@link Item}s
+ * <p>
+ * Unlike going through a {@code CompoundTag} and its JSON form, this reads the NBT stream once and only keeps the
+ * {@code ExtraAttributes} fields used for pricing. Display names, lore and every other tag are skipped in place.
+ */
+@UtilityClass
+public class ItemDecoder {
+
+    /**
+     * The largest inflated item data we accept, as a guard against corrupt size trailers
+     */
+    private final int MAX_INFLATED_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * A reusable inflater per decoding thread
+     */
+    private final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final byte TAG_END = 0;
+    private final byte TAG_BYTE = 1;
+    private final byte TAG_SHORT = 2;
+    private final byte TAG_INT = 3;
+    private final byte TAG_LONG = 4;
+    private final byte TAG_FLOAT = 5;
+    private final byte TAG_DOUBLE = 6;
+    private final byte TAG_BYTE_ARRAY = 7;
+    private final byte TAG_STRING = 8;
+    private final byte TAG_LIST = 9;
+    private final byte TAG_COMPOUND = 10;
+    private final byte TAG_INT_ARRAY = 11;
+    private final byte TAG_LONG_ARRAY = 12;
+
+    /**
+     * Decode an inventory, such as a wardrobe or accessory bag
+     * @param data The base64-encoded, gzipped NBT data of the inventory
+     * @return The items of the inventory by slot. Empty slots, and items without SkyBlock attributes, are
+     * {@code null}. If the data can't be decoded, the list is empty.
+     */
+    public List<Item> decodeInventory(@NonNull String data) {
+        try {
+            return readRoot(open(data));
+        } catch (Exception e) {
+            NetworthCalculator.LOGGER.error("Failed to decode inventory data!", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Decode a single item, such as the {@code item_bytes} of an auction
+     * @param data The base64-encoded, gzipped NBT data of the item
+     * @return The decoded item, or {@code null} if it can't be decoded
+     */
+    public Item decodeItem(@NonNull String data) {
+        try {
+            List<Item> items = readRoot(open(data));
+            return items.isEmpty() ? null : items.get(0);
+        } catch (Exception e) {
+            NetworthCalculator.LOGGER.error("Failed to decode item data!", e);
+            return null;
+        }
+    }
+
+    private ByteBuffer open(@NonNull String data) throws IOException {
+        byte[] decodedData = Base64.getDecoder().decode(data);
+
+        // inflate up front, so reads are unsynchronized buffer reads and skipping unused tags is a cursor move
+        return ByteBuffer.wrap(gunzip(decodedData));
+    }
+
+    /**
+     * Inflate gzipped data with a reused per-thread {@link Inflater}, rather than allocating a new native inflater for
+     * every item like {@link GZIPInputStream} does
+     * @param data The gzipped data
+     * @return The inflated data
+     */
+    private byte[] gunzip(byte[] data) throws IOException {
+        if (data.length < 18 || (data[0] & 0xFF) != 0x1F || (data[1] & 0xFF) != 0x8B || data[2] != 8) {
+            throw new ZipException("Not in GZIP format");
+        }
+
+        // skip the optional header fields
+        int flags = data[3];
+        int position = 10;
+        if ((flags & 4) != 0) { // FEXTRA
+            position += 2 + ((data[position] & 0xFF) | (data[position + 1] & 0xFF) << 8);
+        }
+        if ((flags & 8) != 0) { // FNAME
+            while (data[position++] != 0);
+        }
+        if ((flags & 16) != 0) { // FCOMMENT
+            while (data[position++] != 0);
+        }
+        if ((flags & 2) != 0) { // FHCRC
+            position += 2;
+        }
+
+        // the trailer ends with the inflated size, which lets us allocate the output exactly once
+        int end = data.length - 8;
+        int size = (data[end + 4] & 0xFF) | (data[end + 5] & 0xFF) << 8 | (data[end + 6] & 0xFF) << 16 |
+            (data[end + 7] & 0xFF) << 24;
+
+        if (size < 0 || size > MAX_INFLATED_SIZE) {
+            throw new ZipException("Invalid inflated size " + size);
+        }
+
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data, position, end - position);
+
+        byte[] inflated = new byte[size];
+        try {
+            int read = 0;
+            while (read < size) {
+                int count = inflater.inflate(inflated, read, size - read);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Unexpected end of GZIP data");
+                }
+                read += count;
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        }
+
+        return inflated;
+    }
+
+    /**
+     * Read the root compound of an inventory, which holds the item list under the name {@code i}
+     */
+    private List<Item> readRoot(@NonNull ByteBuffer input) throws IOException {
+        if (input.get() != TAG_COMPOUND) {
+            throw new IOException("Root tag isn't a compound!");
+        }
+        skipString(input); // root name
+
+        List<Item> items = List.of();
+
+        byte type;
+        while ((type = input.get()) != TAG_END) {
+            String name = readUTF(input);
+
+            if (type == TAG_LIST && name.equals("i")) {
+                items = readItemList(input);
+            } else {
+                skipPayload(input, type);
+            }
+        }
+
+        return items;
+    }
+
+    private List<Item> readItemList(@NonNull ByteBuffer input) throws IOException {
+        byte elementType = input.get();
+        int length = input.getInt();
+
+        if (elementType != TAG_COMPOUND) {
+            for (int i = 0; i < length; i++) {
+                skipPayload(input, elementType);
+            }
+            return List.of();
+        }
+
+        List<Item> items = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            items.add(readItem(input));
+        }
+        return items;
+    }
+
+    /**
+     * Read the compound of a single item stack
+     * @return The item, or {@code null} if the slot is empty or the item has no SkyBlock attributes
+     */
+    private Item readItem(@NonNull ByteBuffer input) throws IOException {
+        int count = 0;
+        Attributes attributes = null;
+
+        byte type;
+        while ((type = input.get()) != TAG_END) {
+            String name = readUTF(input);
+
+            if (name.equals("Count") && isNumeric(type)) {
+                count = readInt(input, type);
+            } else if (name.equals("tag") && type == TAG_COMPOUND) {
+                attributes = readTag(input);
+            } else {
+                skipPayload(input, type);
+            }
+        }
+
+        return attributes == null || attributes.id == null ? null : attributes.toItem(count);
+    }
+
+    /**
+     * Read the {@code tag} compound of an item stack, skipping everything but {@code ExtraAttributes}
+     */
+    private Attributes readTag(@NonNull ByteBuffer input) throws IOException {
+        Attributes attributes = null;
+
+        byte type;
+        while ((type = input.get()) != TAG_END) {
+            String name = readUTF(input);
+
+            if (name.equals("ExtraAttributes") && type == TAG_COMPOUND) {
+                attributes = readAttributes(input);
+            } else {
+                skipPayload(input, type);
+            }
+        }
+
+        return attributes;
+    }
+
+    /**
+     * Read the pricing-relevant fields of an {@code ExtraAttributes} compound
+     */
+    private Attributes readAttributes(@NonNull ByteBuffer input) throws IOException {
+        Attributes attributes = new Attributes();
+
+        byte type;
+        while ((type = input.get()) != TAG_END) {
+            switch (readUTF(input)) {
+                case "id" -> attributes.id = readString(input, type);
+                case "modifier" -> attributes.reforge = readString(input, type);
+                case "dye_item" -> attributes.dye = readString(input, type);
+                case "hot_potato_count" -> attributes.hotPotatoCount = readInt(input, type);
+                case "upgrade_level" -> attributes.upgradeLevel = readInt(input, type);
+                case "enchantments" -> readEnchantments(input, type, attributes);
+                case "gems" -> attributes.gems = readGems(input, type, attributes);
+
+                // these only matter by their presence
+                case "art_of_war_count" -> attributes.artOfWar = skipPayload(input, type);
+                case "artOfPeaceApplied" -> attributes.artOfPeace = skipPayload(input, type);
+                case "rarity_upgrades" -> attributes.recombobulated = skipPayload(input, type);
+                case "talisman_enrichment" -> attributes.enriched = skipPayload(input, type);
+                case "dungeon_item" -> attributes.dungeonized = skipPayload(input, type);
+
+                default -> skipPayload(input, type);
+            }
+        }
+
+        return attributes;
+    }
+
+    /**
+     * Read an {@code enchantments} compound into {@link Attributes#enchantments}
+     */
+    private void readEnchantments(@NonNull ByteBuffer input, byte type, @NonNull Attributes attributes)
+            throws IOException {
+        if (type != TAG_COMPOUND) {
+            skipPayload(input, type);
+            return;
+        }
+
+        byte valueType;
+        while ((valueType = input.get()) != TAG_END) {
+            String name = readUTF(input);
+
+            if (isNumeric(valueType)) {
+                attributes.addEnchantment(Item.NAMES.intern(name), readInt(input, valueType));
+            } else {
+                skipPayload(input, valueType);
+            }
+        }
+    }
+
+    /**
+     * Read a {@code gems} compound
+     * @param attributes The attributes to add the unlocked gemstone slots to
+     * @return A map of gem slot -> quality, and of {@code <slot>_gem} -> gemstone type for complex slots
+     */
+    private Map<String, String> readGems(@NonNull ByteBuffer input, byte type,
+                                         @NonNull Attributes attributes) throws IOException {
+        if (type != TAG_COMPOUND) {
+            skipPayload(input, type);
+            return Map.of();
+        }
+
+        Map<String, String> gems = new LinkedHashMap<>();
+
+        byte valueType;
+        while ((valueType = input.get()) != TAG_END) {
+            String name = readUTF(input);
+
+            if (name.equals("unlocked_slots") && valueType == TAG_LIST) {
+                byte elementType = input.get();
+                int length = input.getInt();
+                for (int i = 0; i < length; i++) {
+                    if (elementType == TAG_STRING) {
+                        attributes.addUnlockedSlot(Item.NAMES.intern(readUTF(input)));
+                    } else {
+                        skipPayload(input, elementType);
+                    }
+                }
+            } else if (valueType == TAG_STRING) {
+                gems.put(name, readUTF(input));
+            } else if (valueType == TAG_COMPOUND) {
+                // gems applied with extra data store their quality in a nested compound
+                String quality = null;
+
+                byte fieldType;
+                while ((fieldType = input.get()) != TAG_END) {
+                    String field = readUTF(input);
+                    if (field.equals("quality") && fieldType == TAG_STRING) {
+                        quality = readUTF(input);
+                    } else {
+                        skipPayload(input, fieldType);
+                    }
+                }
+
+                if (quality != null) {
+                    gems.put(name, quality);
+                }
+            } else {
+                skipPayload(input, valueType);
+            }
+        }
+
+        return gems;
+    }
+
+    private boolean isNumeric(byte type) {
+        return type >= TAG_BYTE && type <= TAG_DOUBLE;
+    }
+
+    private int readInt(@NonNull ByteBuffer input, byte type) throws IOException {
+        return switch (type) {
+            case TAG_BYTE -> input.get();
+            case TAG_SHORT -> input.getShort();
+            case TAG_INT -> input.getInt();
+            case TAG_LONG -> (int) input.getLong();
+            case TAG_FLOAT -> (int) input.getFloat();
+            case TAG_DOUBLE -> (int) input.getDouble();
+            default -> {
+                skipPayload(input, type);
+                yield 0;
+            }
+        };
+    }
+
+    private String readString(@NonNull ByteBuffer input, byte type) throws IOException {
+        if (type != TAG_STRING) {
+            skipPayload(input, type);
+            return null;
+        }
+        return readUTF(input);
+    }
+
+    /**
+     * Read an NBT string, which is a length-prefixed modified UTF-8 string
+     */
+    private String readUTF(@NonNull ByteBuffer input) throws IOException {
+        int length = input.getShort() & 0xFFFF;
+        int start = input.position();
+        byte[] array = input.array();
+
+        for (int i = start; i < start + length; i++) {
+            if (array[i] < 0) {
+                // not plain ASCII, fall back to a full modified UTF-8 decode
+                DataInputStream utfInput = new DataInputStream(new ByteArrayInputStream(array, start - 2, length + 2));
+                input.position(start + length);
+                return utfInput.readUTF();
+            }
+        }
+
+        input.position(start + length);
+        return new String(array, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private void skipString(@NonNull ByteBuffer input) throws IOException {
+        skipFully(input, input.getShort() & 0xFFFF);
+    }
+
+    /**
+     * Skip the payload of a tag without reading it into memory
+     * @return Always {@code true}, so presence-only tags can be skipped and flagged in one expression
+     */
+    private boolean skipPayload(@NonNull ByteBuffer input, byte type) throws IOException {
+        switch (type) {
+            case TAG_END -> {
+            }
+            case TAG_BYTE -> skipFully(input, 1);
+            case TAG_SHORT -> skipFully(input, 2);
+            case TAG_INT, TAG_FLOAT -> skipFully(input, 4);
+            case TAG_LONG, TAG_DOUBLE -> skipFully(input, 8);
+            case TAG_BYTE_ARRAY -> skipFully(input, input.getInt());
+            case TAG_STRING -> skipString(input);
+            case TAG_LIST -> {
+                byte elementType = input.get();
+                int length = input.getInt();
+                for (int i = 0; i < length; i++) {
+                    skipPayload(input, elementType);
+                }
+            }
+            case TAG_COMPOUND -> {
+                byte childType;
+                while ((childType = input.get()) != TAG_END) {
+                    skipString(input);
+                    skipPayload(input, childType);
+                }
+            }
+            case TAG_INT_ARRAY -> skipFully(input, 4L * input.getInt());
+            case TAG_LONG_ARRAY -> skipFully(input, 8L * input.getInt());
+            default -> throw new IOException("Unknown NBT tag type " + type + "!");
+        }
+        return true;
+    }
+
+    private void skipFully(@NonNull ByteBuffer input, long bytes) throws IOException {
+        if (bytes < 0 || bytes > input.remaining()) {
+            throw new EOFException();
+        }
+        input.position(input.position() + (int) bytes);
+    }
+
+    /**
+     * The pricing-relevant fields of an {@code ExtraAttributes} compound, collected before the stack count is known
+     */
+    private static class Attributes {
+        private String id;
+        private int hotPotatoCount;
+        private boolean artOfWar;
+        private boolean artOfPeace;
+        private boolean recombobulated;
+        private boolean enriched;
+        private String reforge;
+        private String dye;
+        private boolean dungeonized;
+        private int upgradeLevel;
+        private Map<String, String> gems = Map.of();
+
+        /**
+         * Enchantments as (name ordinal, level) pairs, handed over to the item as is
+         */
+        private int[] enchantments;
+        private int enchantmentCount;
+
+        /**
+         * Unlocked gemstone slot name ordinals, handed over to the item as is
+         */
+        private int[] unlockedSlots;
+        private int unlockedSlotCount;
+
+        private void addEnchantment(int ordinal, int level) {
+            if (this.enchantments == null) {
+                this.enchantments = new int[16];
+            } else if (2 * this.enchantmentCount == this.enchantments.length) {
+                this.enchantments = Arrays.copyOf(this.enchantments, this.enchantments.length * 2);
+            }
+            this.enchantments[2 * this.enchantmentCount] = ordinal;
+            this.enchantments[2 * this.enchantmentCount + 1] = level;
+            this.enchantmentCount++;
+        }
+
+        private void addUnlockedSlot(int ordinal) {
+            if (this.unlockedSlots == null) {
+                this.unlockedSlots = new int[4];
+            } else if (this.unlockedSlotCount == this.unlockedSlots.length) {
+                this.unlockedSlots = Arrays.copyOf(this.unlockedSlots, this.unlockedSlots.length * 2);
+            }
+            this.unlockedSlots[this.unlockedSlotCount++] = ordinal;
+        }
+
+        /**
+         * Build an {@link Item}, mirroring {@link Item#fromAttributes}
+         * @param count The stack count of the item
+         */
+        private Item toItem(int count) {
+            Item item = new Item(count, this.id, Math.min(this.hotPotatoCount, 10),
+                Math.max(this.hotPotatoCount - 10, 0), this.artOfWar, this.artOfPeace, this.recombobulated,
+                this.enriched, this.reforge, this.dye, this.dungeonized, this.upgradeLevel);
+
+            if (this.enchantments != null) {
+                item.setEnchantments(this.enchantments, this.enchantmentCount);
+            }
+            if (this.unlockedSlots != null) {
+                item.setUnlockedGemstoneSlots(this.unlockedSlots, this.unlockedSlotCount);
+            }
+
+            if (this.gems.isEmpty()) {
+                return item;
+            }
+
+            byte[] gemstones = new byte[this.gems.size()];
+            int gemstoneCount = 0;
+
+            for (Map.Entry<String, String> entry : this.gems.entrySet()) {
+                if (entry.getKey().endsWith("_gem")) {
+                    continue;
+                }
+
+                Gemstone.Type type = Gemstone.Type.ofSlot(entry.getKey());
+
+                if (type == null) { // handle complex slots like combat, defensive, offensive, universal, etc.
+                    String gemType = this.gems.get(entry.getKey() + "_gem");
+                    if (gemType == null) {
+                        continue; // no gem type recorded for this slot
+                    }
+                    type = Gemstone.Type.of(gemType);
+                }
+
+                gemstones[gemstoneCount++] = (byte) Gemstone.of(type, Gemstone.Quality.of(entry.getValue())).pack();
+            }
+
+            item.setGemstones(gemstones, gemstoneCount);
+            return item;
+        }
+    }
+}
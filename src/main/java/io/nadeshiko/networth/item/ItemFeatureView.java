@@ -0,0 +1,109 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.item;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The {@link ItemFeatures} of an {@link Item}, see {@link ItemFeatures#of(Item)}
+ * <p>
+ * Items keep their enchantments, gemstones and slots sorted already, so only the flags, ordinals and signatures are
+ * computed up front; everything else is read from the item.
+ */
+@Getter
+final class ItemFeatureView implements ItemFeatures {
+
+    @Getter(AccessLevel.NONE)
+    private final Item item;
+
+    private final int flags;
+    private final int reforge;
+    private final int dye;
+    private final long enchantmentSignature;
+    private final long gemstoneSignature;
+
+    ItemFeatureView(@NonNull Item item) {
+        this.item = item;
+        this.flags = ItemFeatures.flags(item);
+        this.reforge = item.getReforge() == null ? -1 : Item.IDS.intern(item.getReforge());
+        this.dye = item.getDye() == null ? -1 : Item.IDS.intern(item.getDye());
+
+        long enchantmentSignature = 0;
+        for (int i = 0; i < item.getEnchantmentCount(); i++) {
+            enchantmentSignature |= ItemFeatures.enchantmentBit(item.getEnchantmentOrdinal(i));
+        }
+        this.enchantmentSignature = enchantmentSignature;
+
+        long gemstoneSignature = 0;
+        for (int i = 0; i < item.getGemstoneCount(); i++) {
+            gemstoneSignature |= ItemFeatures.gemstoneBit(item.getPackedGemstone(i));
+        }
+        for (int i = 0; i < item.getUnlockedGemstoneSlotCount(); i++) {
+            gemstoneSignature |= ItemFeatures.slotBit(item.getUnlockedGemstoneSlotOrdinal(i));
+        }
+        this.gemstoneSignature = gemstoneSignature;
+    }
+
+    @Override
+    public int getHotPotatoBooks() {
+        return this.item.getHotPotatoBooks();
+    }
+
+    @Override
+    public int getFumingPotatoBooks() {
+        return this.item.getFumingPotatoBooks();
+    }
+
+    @Override
+    public int getUpgradeLevel() {
+        return this.item.getUpgradeLevel();
+    }
+
+    @Override
+    public int getEnchantmentCount() {
+        return this.item.getEnchantmentCount();
+    }
+
+    @Override
+    public int getEnchantmentOrdinal(int index) {
+        return this.item.getEnchantmentOrdinal(index);
+    }
+
+    @Override
+    public int getEnchantmentLevel(int index) {
+        return this.item.getEnchantmentLevel(index);
+    }
+
+    @Override
+    public int getGemstoneCount() {
+        return this.item.getGemstoneCount();
+    }
+
+    @Override
+    public int getPackedGemstone(int index) {
+        return this.item.getPackedGemstone(index);
+    }
+
+    @Override
+    public int getUnlockedGemstoneSlotCount() {
+        return this.item.getUnlockedGemstoneSlotCount();
+    }
+
+    @Override
+    public int getUnlockedGemstoneSlotOrdinal(int index) {
+        return this.item.getUnlockedGemstoneSlotOrdinal(index);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.item;
+
+import lombok.NonNull;
+
+/**
+ * The attributes of an item that an {@link ItemSimilarity} compares, resolved to primitives
+ * <p>
+ * Reforges and dyes are {@link Item#IDS} ordinals, enchantments and unlocked gemstone slots {@link Item#NAMES}
+ * ordinals, and gemstones are {@link Gemstone#pack() packed}. Enchantments, gemstones and slots are sorted, so that
+ * two items can be compared in a single merge of each, and are summarized in 64-bit signatures: two items differ by at
+ * least one enchantment, gemstone or slot for every bit set in the XOR of their signatures.
+ */
+public interface ItemFeatures {
+
+    /**
+     * Boolean modifiers, packed into {@link ItemFeatures#getFlags()}. Market snapshots are saved to disk with these
+     * bits, so existing bits must never change.
+     */
+    int ART_OF_WAR = 1;
+    int ART_OF_PEACE = 1 << 1;
+    int RECOMBOBULATED = 1 << 2;
+    int ENRICHED = 1 << 3;
+    int DUNGEONIZED = 1 << 4;
+
+    /**
+     * The bits of {@link ItemFeatures#getGemstoneSignature()} that stand for gemstone types, the others standing for
+     * unlocked slots
+     */
+    long GEMSTONE_TYPE_BITS = 0xFFFFL;
+
+    /**
+     * Get the features of an item. The item must not be modified while they are in use.
+     * @param item The {@link Item} to get the features of
+     * @return A view of the item's features, with its signatures computed up front
+     */
+    static ItemFeatures of(@NonNull Item item) {
+        return new ItemFeatureView(item);
+    }
+
+    /**
+     * @return The boolean modifiers of an item, as a combination of {@link ItemFeatures#ART_OF_WAR} and the like
+     */
+    static int flags(@NonNull Item item) {
+        return (item.isArtOfWar() ? ART_OF_WAR : 0) | (item.isArtOfPeace() ? ART_OF_PEACE : 0) |
+            (item.isRecombobulated() ? RECOMBOBULATED : 0) | (item.isEnriched() ? ENRICHED : 0) |
+            (item.isDungeonized() ? DUNGEONIZED : 0);
+    }
+
+    /**
+     * @return The bit an enchantment sets in {@link ItemFeatures#getEnchantmentSignature()}
+     */
+    static long enchantmentBit(int ordinal) {
+        return 1L << ordinal; // shifts only use the low 6 bits
+    }
+
+    /**
+     * @return The bit a packed gemstone sets in {@link ItemFeatures#getGemstoneSignature()}, one per gemstone type
+     */
+    static long gemstoneBit(int packed) {
+        return 1L << ((packed & 0xFF) >>> 4);
+    }
+
+    /**
+     * @return The bit an unlocked slot sets in {@link ItemFeatures#getGemstoneSignature()}, above the gemstone types
+     */
+    static long slotBit(int ordinal) {
+        return 1L << (16 + Integer.remainderUnsigned(ordinal, 48));
+    }
+
+    int getHotPotatoBooks();
+
+    int getFumingPotatoBooks();
+
+    int getUpgradeLevel();
+
+    /**
+     * @return The boolean modifiers, as a combination of {@link ItemFeatures#ART_OF_WAR} and the like
+     */
+    int getFlags();
+
+    /**
+     * @return The ordinal of the reforge, or -1 if none
+     */
+    int getReforge();
+
+    /**
+     * @return The ordinal of the dye, or -1 if none
+     */
+    int getDye();
+
+    int getEnchantmentCount();
+
+    /**
+     * @return The ordinal of the enchantment at an index, enchantments being sorted by ordinal
+     */
+    int getEnchantmentOrdinal(int index);
+
+    int getEnchantmentLevel(int index);
+
+    /**
+     * @return The OR of the {@link ItemFeatures#enchantmentBit} of every enchantment
+     */
+    long getEnchantmentSignature();
+
+    int getGemstoneCount();
+
+    /**
+     * @return The packed gemstone at an index, gemstones being sorted by {@link Gemstone#sort type, then quality}
+     */
+    int getPackedGemstone(int index);
+
+    int getUnlockedGemstoneSlotCount();
+
+    /**
+     * @return The ordinal of the unlocked slot at an index, slots being sorted by ordinal
+     */
+    int getUnlockedGemstoneSlotOrdinal(int index);
+
+    /**
+     * @return The OR of the {@link ItemFeatures#gemstoneBit} of every gemstone and the {@link ItemFeatures#slotBit} of
+     * every unlocked slot
+     */
+    long getGemstoneSignature();
+}
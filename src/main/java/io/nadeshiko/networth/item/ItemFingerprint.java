@@ -0,0 +1,141 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.item;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An immutable, canonical key over every field of an {@link Item} that affects its price
+ * <p>
+ * Two items with the same fingerprint are always priced the same against the same market, no matter the order their
+ * gemstones or unlocked slots were listed in. Unlike {@link Item}, a fingerprint never changes once created, so it is
+ * safe to use as a cache key: its arrays are only ever created by {@link ItemFingerprint#of(Item)} and never exposed.
+ * <p>
+ * Enchantments are stored as (name ordinal, level) pairs sorted by ordinal, gemstones as sorted
+ * {@link Gemstone#pack() packed} bytes, and unlocked slots as sorted name ordinals, see {@link Item#NAMES}.
+ */
+@Getter
+public final class ItemFingerprint {
+
+    private final String id;
+    private final int count;
+    private final int hotPotatoBooks;
+    private final int fumingPotatoBooks;
+    private final int upgradeLevel;
+    private final int flags;
+    private final String reforge;
+    private final String dye;
+
+    @Getter(AccessLevel.NONE)
+    private final int[] enchantments;
+    @Getter(AccessLevel.NONE)
+    private final byte[] gemstones;
+    @Getter(AccessLevel.NONE)
+    private final int[] unlockedGemstoneSlots;
+
+    /**
+     * Computed up front, as every fingerprint is hashed at least twice: once to look it up, once to cache it
+     */
+    @Getter(AccessLevel.NONE)
+    private final int hash;
+
+    private ItemFingerprint(@NonNull Item item, int @NonNull [] enchantments, byte @NonNull [] gemstones,
+                            int @NonNull [] unlockedGemstoneSlots) {
+        this.id = item.getId();
+        this.count = item.getCount();
+        this.hotPotatoBooks = item.getHotPotatoBooks();
+        this.fumingPotatoBooks = item.getFumingPotatoBooks();
+        this.upgradeLevel = item.getUpgradeLevel();
+        this.flags = ItemFeatures.flags(item);
+        this.reforge = item.getReforge();
+        this.dye = item.getDye();
+        this.enchantments = enchantments;
+        this.gemstones = gemstones;
+        this.unlockedGemstoneSlots = unlockedGemstoneSlots;
+
+        int hash = this.id.hashCode();
+        hash = 31 * hash + this.count;
+        hash = 31 * hash + this.hotPotatoBooks;
+        hash = 31 * hash + this.fumingPotatoBooks;
+        hash = 31 * hash + this.upgradeLevel;
+        hash = 31 * hash + this.flags;
+        hash = 31 * hash + Objects.hashCode(this.reforge);
+        hash = 31 * hash + Objects.hashCode(this.dye);
+        hash = 31 * hash + Arrays.hashCode(this.enchantments);
+        hash = 31 * hash + Arrays.hashCode(this.gemstones);
+        hash = 31 * hash + Arrays.hashCode(this.unlockedGemstoneSlots);
+        this.hash = hash;
+    }
+
+    /**
+     * Create the fingerprint of an item
+     * @param item The {@link Item} to fingerprint
+     * @return A new {@link ItemFingerprint}
+     */
+    public static ItemFingerprint of(@NonNull Item item) {
+        int[] enchantments = new int[2 * item.getEnchantmentCount()];
+        for (int i = 0; i < item.getEnchantmentCount(); i++) {
+            enchantments[2 * i] = item.getEnchantmentOrdinal(i);
+            enchantments[2 * i + 1] = item.getEnchantmentLevel(i);
+        }
+
+        byte[] gemstones = new byte[item.getGemstoneCount()];
+        for (int i = 0; i < gemstones.length; i++) {
+            gemstones[i] = (byte) item.getPackedGemstone(i); // items keep their gemstones sorted
+        }
+
+        int[] unlockedSlots = new int[item.getUnlockedGemstoneSlotCount()];
+        for (int i = 0; i < unlockedSlots.length; i++) {
+            unlockedSlots[i] = item.getUnlockedGemstoneSlotOrdinal(i); // and their slots
+        }
+
+        return new ItemFingerprint(item, enchantments, gemstones, unlockedSlots);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ItemFingerprint that &&
+            this.hash == that.hash &&
+            this.count == that.count &&
+            this.hotPotatoBooks == that.hotPotatoBooks &&
+            this.fumingPotatoBooks == that.fumingPotatoBooks &&
+            this.upgradeLevel == that.upgradeLevel &&
+            this.flags == that.flags &&
+            this.id.equals(that.id) &&
+            Objects.equals(this.reforge, that.reforge) &&
+            Objects.equals(this.dye, that.dye) &&
+            Arrays.equals(this.enchantments, that.enchantments) &&
+            Arrays.equals(this.gemstones, that.gemstones) &&
+            Arrays.equals(this.unlockedGemstoneSlots, that.unlockedGemstoneSlots);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemFingerprint[id=" + this.id + ", count=" + this.count + ", hotPotatoBooks=" + this.hotPotatoBooks +
+            ", fumingPotatoBooks=" + this.fumingPotatoBooks + ", upgradeLevel=" + this.upgradeLevel +
+            ", flags=" + this.flags + ", reforge=" + this.reforge + ", dye=" + this.dye +
+            ", enchantments=" + Arrays.toString(this.enchantments) + ", gemstones=" + Arrays.toString(this.gemstones) +
+            ", unlockedGemstoneSlots=" + Arrays.toString(this.unlockedGemstoneSlots) + "]";
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.item;
+
+import lombok.NonNull;
+
+/**
+ * A measure of how similar two items of the same ID are, used to pick the auction an item is priced against
+ * <p>
+ * Items are compared through their {@link ItemFeatures}, which are resolved once per item rather than once per
+ * comparison. Set a custom implementation with {@code CalculatorConfig.itemSimilarity}; implementations must be
+ * thread-safe.
+ */
+public interface ItemSimilarity {
+
+    /**
+     * The penalty at or above which two items don't match at all
+     */
+    int NO_MATCH = 1000;
+
+    /**
+     * @return The default similarity, accounting for every modifier including gemstones and unlocked slots
+     */
+    static ItemSimilarity standard() {
+        return StandardItemSimilarity.INSTANCE;
+    }
+
+    /**
+     * How dissimilar a listing is to an item, in thousandths of a point
+     * <p>
+     * Lookups only keep listings scoring below a bound, so implementations should return as soon as they know a
+     * listing reaches it, without working out the exact penalty.
+     * @param listing The features of the listed item
+     * @param item The features of the item being looked up
+     * @param bound The penalty past which the exact value doesn't matter, at most {@link ItemSimilarity#NO_MATCH}
+     * @return The penalty, zero meaning the items are identical, or any value at or above {@code bound} if it reaches
+     * it
+     */
+    int penalty(@NonNull ItemFeatures listing, @NonNull ItemFeatures item, int bound);
+
+    /**
+     * Compare two items
+     * @param item The item being looked up
+     * @param listing The item to compare it to
+     * @return A score from 0 to 1 of how similar the two items are, 1 being identical
+     */
+    default double similarity(@NonNull Item item, @NonNull Item listing) {
+        if (!item.getId().equals(listing.getId())) {
+            return 0; // completely different item
+        }
+
+        int penalty = this.penalty(ItemFeatures.of(listing), ItemFeatures.of(item), NO_MATCH);
+        return 1 - Math.min(penalty, NO_MATCH) / (double) NO_MATCH;
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.item;
+
+import lombok.NonNull;
+
+/**
+ * The default {@link ItemSimilarity}, penalizing every modifier two items don't share
+ * <p>
+ * Gemstones are paired by type, in order of quality: each pair costs a penalty per quality tier between its gemstones,
+ * and each gemstone left without a pair costs as much as a missing one, so a listing with perfect gemstones is never a
+ * close match for a gemless item. Unlocked slots only one of the items has are penalized the same way.
+ * <p>
+ * The modifiers and the lower bounds given by the signatures are checked before anything is merged, so that most
+ * listings that can't beat the best match so far are rejected in a few bit operations.
+ */
+final class StandardItemSimilarity implements ItemSimilarity {
+
+    static final StandardItemSimilarity INSTANCE = new StandardItemSimilarity();
+
+    /**
+     * Penalties, in thousandths of a point
+     */
+    private static final int REFORGE_PENALTY = 5;
+    private static final int HOT_POTATO_BOOK_PENALTY = 1;
+    private static final int FUMING_POTATO_BOOK_PENALTY = 12;
+    private static final int RECOMBOBULATOR_PENALTY = 30;
+    private static final int ART_OF_PEACE_PENALTY = 75;
+    private static final int ART_OF_WAR_PENALTY = 15;
+    private static final int ENRICHMENT_PENALTY = 20;
+    private static final int DUNGEONIZED_PENALTY = 10;
+    private static final int DYE_ADDED_PENALTY = 90;
+    private static final int DYE_CHANGED_PENALTY = 75;
+    private static final int UPGRADE_LEVEL_PENALTY = 35;
+    private static final int ENCHANTMENT_MISSING_PENALTY = 50;
+    private static final int ENCHANTMENT_LEVEL_PENALTY = 20;
+    private static final int GEMSTONE_MISSING_PENALTY = 40;
+    private static final int GEMSTONE_QUALITY_PENALTY = 10;
+    private static final int UNLOCKED_SLOT_MISSING_PENALTY = 25;
+
+    /**
+     * The penalty of every combination of differing flags, indexed by the XOR of two items' flags
+     */
+    private static final int[] FLAG_PENALTIES = new int[256];
+
+    static {
+        for (int flags = 0; flags < FLAG_PENALTIES.length; flags++) {
+            FLAG_PENALTIES[flags] = ((flags & ItemFeatures.RECOMBOBULATED) != 0 ? RECOMBOBULATOR_PENALTY : 0) +
+                ((flags & ItemFeatures.ART_OF_PEACE) != 0 ? ART_OF_PEACE_PENALTY : 0) +
+                ((flags & ItemFeatures.ART_OF_WAR) != 0 ? ART_OF_WAR_PENALTY : 0) +
+                ((flags & ItemFeatures.ENRICHED) != 0 ? ENRICHMENT_PENALTY : 0) +
+                ((flags & ItemFeatures.DUNGEONIZED) != 0 ? DUNGEONIZED_PENALTY : 0);
+        }
+    }
+
+    private StandardItemSimilarity() {
+    }
+
+    @Override
+    public int penalty(@NonNull ItemFeatures listing, @NonNull ItemFeatures item, int bound) {
+        int penalty = FLAG_PENALTIES[(listing.getFlags() ^ item.getFlags()) & 0xFF];
+
+        penalty += Math.abs(listing.getHotPotatoBooks() - item.getHotPotatoBooks()) * HOT_POTATO_BOOK_PENALTY;
+        penalty += Math.abs(listing.getFumingPotatoBooks() - item.getFumingPotatoBooks()) * FUMING_POTATO_BOOK_PENALTY;
+        penalty += Math.abs(listing.getUpgradeLevel() - item.getUpgradeLevel()) * UPGRADE_LEVEL_PENALTY;
+
+        if (listing.getReforge() != item.getReforge()) {
+            penalty += REFORGE_PENALTY;
+        }
+        if (listing.getDye() != item.getDye()) {
+            // one item is dyed the other isn't, or both are dyed with different dyes
+            penalty += listing.getDye() < 0 || item.getDye() < 0 ? DYE_ADDED_PENALTY : DYE_CHANGED_PENALTY;
+        }
+
+        // every bit set in the XOR of the signatures is at least one enchantment, gemstone or slot missing
+        long enchantments = listing.getEnchantmentSignature() ^ item.getEnchantmentSignature();
+        long gemstones = listing.getGemstoneSignature() ^ item.getGemstoneSignature();
+        int lowerBound = penalty + Long.bitCount(enchantments) * ENCHANTMENT_MISSING_PENALTY +
+            Long.bitCount(gemstones & ItemFeatures.GEMSTONE_TYPE_BITS) * GEMSTONE_MISSING_PENALTY +
+            Long.bitCount(gemstones & ~ItemFeatures.GEMSTONE_TYPE_BITS) * UNLOCKED_SLOT_MISSING_PENALTY;
+        if (lowerBound >= bound) {
+            return lowerBound;
+        }
+
+        penalty += enchantmentPenalty(listing, item, bound - penalty);
+        if (penalty >= bound) {
+            return penalty;
+        }
+
+        penalty += gemstonePenalty(listing, item);
+        if (penalty >= bound) {
+            return penalty;
+        }
+
+        return penalty + slotPenalty(listing, item);
+    }
+
+    /**
+     * Merge the sorted enchantments of two items, stopping early once the penalty reaches {@code bound}
+     */
+    private static int enchantmentPenalty(@NonNull ItemFeatures listing, @NonNull ItemFeatures item, int bound) {
+        int penalty = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < listing.getEnchantmentCount() && j < item.getEnchantmentCount() && penalty < bound) {
+            int ordinal = listing.getEnchantmentOrdinal(i);
+            int otherOrdinal = item.getEnchantmentOrdinal(j);
+
+            if (ordinal == otherOrdinal) {
+                // the items have different enchantment levels
+                penalty += Math.abs(listing.getEnchantmentLevel(i) - item.getEnchantmentLevel(j)) *
+                    ENCHANTMENT_LEVEL_PENALTY;
+                i++;
+                j++;
+            } else if (ordinal < otherOrdinal) {
+                penalty += ENCHANTMENT_MISSING_PENALTY; // the listing has an enchantment that the item doesn't
+                i++;
+            } else {
+                penalty += ENCHANTMENT_MISSING_PENALTY; // the item has an enchantment that the listing doesn't
+                j++;
+            }
+        }
+
+        return penalty + (listing.getEnchantmentCount() - i + item.getEnchantmentCount() - j) *
+            ENCHANTMENT_MISSING_PENALTY;
+    }
+
+    /**
+     * Merge the sorted gemstones of two items, pairing gemstones of the same type in order of quality
+     */
+    private static int gemstonePenalty(@NonNull ItemFeatures listing, @NonNull ItemFeatures item) {
+        int penalty = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < listing.getGemstoneCount() && j < item.getGemstoneCount()) {
+            int gemstone = listing.getPackedGemstone(i);
+            int otherGemstone = item.getPackedGemstone(j);
+
+            if (gemstone >>> 4 == otherGemstone >>> 4) {
+                // gemstones of the same type, but of different qualities
+                penalty += Math.abs((gemstone & 0xF) - (otherGemstone & 0xF)) * GEMSTONE_QUALITY_PENALTY;
+                i++;
+                j++;
+            } else if (gemstone < otherGemstone) {
+                penalty += GEMSTONE_MISSING_PENALTY; // the listing has a gemstone of a type that the item lacks
+                i++;
+            } else {
+                penalty += GEMSTONE_MISSING_PENALTY; // the item has a gemstone of a type that the listing lacks
+                j++;
+            }
+        }
+
+        return penalty + (listing.getGemstoneCount() - i + item.getGemstoneCount() - j) * GEMSTONE_MISSING_PENALTY;
+    }
+
+    /**
+     * Merge the sorted unlocked slots of two items
+     */
+    private static int slotPenalty(@NonNull ItemFeatures listing, @NonNull ItemFeatures item) {
+        int missing = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < listing.getUnlockedGemstoneSlotCount() && j < item.getUnlockedGemstoneSlotCount()) {
+            int slot = listing.getUnlockedGemstoneSlotOrdinal(i);
+            int otherSlot = item.getUnlockedGemstoneSlotOrdinal(j);
+
+            if (slot == otherSlot) {
+                i++;
+                j++;
+            } else if (slot < otherSlot) {
+                missing++;
+                i++;
+            } else {
+                missing++;
+                j++;
+            }
+        }
+
+        missing += listing.getUnlockedGemstoneSlotCount() - i + item.getUnlockedGemstoneSlotCount() - j;
+        return missing * UNLOCKED_SLOT_MISSING_PENALTY;
+    }
+}
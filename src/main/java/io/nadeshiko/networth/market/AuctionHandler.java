@@ -13,114 +13,309 @@
 
 package io.nadeshiko.networth.market;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import io.nadeshiko.networth.NetworthCalculator;
-import io.nadeshiko.networth.util.HTTPUtil;
 import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.util.ThreadUtil;
 import lombok.NonNull;
 
+import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * Builds the Auction House book. Updates are expected to be run one at a time, see {@link MarketManager}.
+ */
 public class AuctionHandler {
 
     /**
-     * A list of current BIN auctions on the Auction House
+     * The default maximum number of Auction House pages fetched at once
+     */
+    public static final int DEFAULT_PAGE_CONCURRENCY = 8;
+
+    /**
+     * Where Auction House pages are read from
+     */
+    private final MarketDataSource source;
+
+    /**
+     * Executor fetching Auction House pages. Its size bounds the number of concurrent page requests.
+     */
+    private final ExecutorService fetchExecutor;
+
+    /**
+     * Executor decoding the items of fetched pages while other pages are still downloading
      */
-    private List<Auction> currentAuctions = new ArrayList<>();
-    private long lastUpdateTime = 0;
+    private final ExecutorService decodeExecutor;
+
+    /**
+     * The current BIN auctions on the Auction House
+     */
+    private volatile AuctionIndex currentAuctions = AuctionIndex.EMPTY;
+
+    /**
+     * The {@code lastUpdated} timestamp of the API data the current book was built from
+     */
+    private volatile long lastApiUpdate = 0;
+
+    /**
+     * Whether the book was seeded by a full rebuild or a restore, so that incremental updates have a book to update
+     */
+    private volatile boolean seeded = false;
 
     public AuctionHandler() {
-        this.doUpdate();
+        this(MarketManager.HYPIXEL_API_URL, DEFAULT_PAGE_CONCURRENCY);
+    }
+
+    /**
+     * Create a new AuctionHandler fetching from the given API
+     * @param apiUrl The base URL of the API, without a trailing slash, i.e. https://api.hypixel.net/v2
+     * @param pageConcurrency The maximum number of Auction House pages to fetch at once
+     */
+    public AuctionHandler(@NonNull String apiUrl, int pageConcurrency) {
+        this(new HttpMarketDataSource(apiUrl), pageConcurrency);
     }
 
-    public Auction findClosest(@NonNull Item item) {
-        if (System.currentTimeMillis() - this.lastUpdateTime > 1000 * 60 * 60) {
-            new Thread(this::doUpdate).start();
+    /**
+     * Create a new AuctionHandler reading from the given source
+     * @param source The {@link MarketDataSource} to read Auction House pages from
+     * @param pageConcurrency The maximum number of Auction House pages to fetch at once
+     */
+    public AuctionHandler(@NonNull MarketDataSource source, int pageConcurrency) {
+        if (pageConcurrency < 1) {
+            throw new IllegalArgumentException("Page concurrency must be at least 1, got " + pageConcurrency + "!");
         }
 
-        Auction bestMatch = null;
-        double bestScore = 0;
+        this.source = source;
+        this.fetchExecutor = Executors.newFixedThreadPool(pageConcurrency, ThreadUtil.daemonFactory("AH-Fetch"));
+        this.decodeExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            ThreadUtil.daemonFactory("AH-Decode"));
+    }
+
+    /**
+     * Rebuild the book from every page of the Auction House
+     * @return An index over the new book, or {@code null} if the data couldn't be fetched
+     */
+    public AuctionIndex doUpdate() {
+        try {
+            AuctionPage firstPage = this.fetchPage(0);
+
+            if (firstPage == null) {
+                return null;
+            }
+
+            // rows are copied as is for listings that were already in the previous book
+            AuctionIndex previousAuctions = this.currentAuctions;
 
-        for (Auction auction : this.currentAuctions) {
-            double score = auction.item.compareTo(item);
+            // decode the first page while the rest are still downloading
+            List<CompletableFuture<AuctionPage>> fetches = new ArrayList<>();
+            List<CompletableFuture<DecodedPage>> pages = new ArrayList<>();
+            pages.add(CompletableFuture.supplyAsync(() -> this.decodePage(firstPage, previousAuctions),
+                this.decodeExecutor));
 
-            if (score == 1) {
-                return auction; // we found a perfect match
+            for (int i = 1; i < firstPage.totalPages(); i++) {
+                int page = i;
+                CompletableFuture<AuctionPage> fetch =
+                    CompletableFuture.supplyAsync(() -> this.fetchPageUnchecked(page), this.fetchExecutor);
+                fetches.add(fetch);
+                pages.add(fetch.thenApplyAsync(fetchedPage -> this.decodePage(fetchedPage, previousAuctions),
+                    this.decodeExecutor));
             }
 
-            if (score > bestScore) {
-                bestMatch = auction;
-                bestScore = score;
+            AuctionIndex.Builder newCurrentAuctions = AuctionIndex.builder();
+            try {
+                for (CompletableFuture<DecodedPage> page : pages) {
+                    DecodedPage decodedPage = page.join();
+                    for (int row : decodedPage.reusedRows()) {
+                        newCurrentAuctions.add(previousAuctions, row);
+                    }
+                    decodedPage.decoded().forEach(newCurrentAuctions::add);
+                }
+            } catch (RuntimeException e) {
+                // the book can't be built without every page, so don't fetch or decode the rest for nothing
+                fetches.forEach(fetch -> fetch.cancel(false));
+                pages.forEach(page -> page.cancel(false));
+                throw e;
             }
-        }
 
-        return bestMatch;
+            AuctionIndex published = this.publish(newCurrentAuctions.build(), firstPage.lastUpdated());
+            this.seeded = true;
+            return published;
+        } catch (Exception e) {
+            NetworthCalculator.LOGGER.error("Failed to fetch AH data!", e);
+            return null;
+        }
     }
 
-    public Auction findCheapest(@NonNull String id) {
-        if (System.currentTimeMillis() - this.lastUpdateTime > 1000 * 60 * 60) {
-            new Thread(this::doUpdate).start();
+    /**
+     * Bring the current book up to date without a full rebuild, by adding the new BIN auctions from the first page
+     * and removing auctions that have sold, been cancelled, or expired
+     * @return An index over the updated book, or {@code null} if the data couldn't be fetched or hasn't changed, or if
+     * the book hasn't been seeded by {@link AuctionHandler#doUpdate()} or {@link AuctionHandler#restore} yet
+     */
+    public AuctionIndex doIncrementalUpdate() {
+        if (!this.seeded) {
+            return null; // the first page alone is only a sliver of the Auction House
         }
 
-        Auction cheapest = null;
+        try {
+            AuctionPage firstPage = this.fetchPage(0);
 
-        for (Auction auction : this.currentAuctions) {
-            if (!auction.item.getId().equals(id) && !auction.item.getId().matches(id)) {
-                continue;
+            if (firstPage == null || firstPage.lastUpdated() == this.lastApiUpdate) {
+                return null; // the API hasn't updated since we last looked
             }
 
-            if (cheapest == null || auction.price < cheapest.price) {
-                cheapest = auction;
+            AuctionIndex previousAuctions = this.currentAuctions;
+
+            // newly created auctions always appear on the first page
+            DecodedPage newAuctions = this.decodePage(firstPage, previousAuctions);
+
+            // drop auctions that ended since the last update, even if they're still cached on the first page
+            List<String> endedAuctionList;
+            try (InputStream response = this.source.openEndedAuctions()) {
+                endedAuctionList = AuctionPage.readEnded(response);
             }
-        }
 
-        return cheapest;
-    }
+            if (endedAuctionList == null) {
+                NetworthCalculator.LOGGER.error("Ended AH data didn't return successfully!");
+                return null;
+            }
 
-    private void doUpdate() {
-        try {
-            List<Auction> newCurrentAuctions = new ArrayList<>();
+            Set<String> endedAuctions = new HashSet<>(endedAuctionList);
 
-            int pages = this.scanPage(0, newCurrentAuctions);
+            // and auctions that expired without selling
+            long now = System.currentTimeMillis();
 
-            for (int i = 0; i < pages; i++) {
-                this.scanPage(i, newCurrentAuctions);
+            AuctionIndex.Builder newCurrentAuctions = AuctionIndex.builder();
+            for (int row = 0; row < previousAuctions.size(); row++) {
+                if (previousAuctions.end(row) >= now && !endedAuctions.contains(previousAuctions.uuid(row))) {
+                    newCurrentAuctions.add(previousAuctions, row);
+                }
+            }
+            for (Auction auction : newAuctions.decoded()) {
+                if (auction.end() >= now && !endedAuctions.contains(auction.uuid())) {
+                    newCurrentAuctions.add(auction);
+                }
             }
 
-            this.currentAuctions = newCurrentAuctions;
-            lastUpdateTime = System.currentTimeMillis();
+            return this.publish(newCurrentAuctions.build(), firstPage.lastUpdated());
         } catch (Exception e) {
-            NetworthCalculator.LOGGER.error("Failed to fetch AH data!", e);
+            NetworthCalculator.LOGGER.error("Failed to incrementally update AH data!", e);
+            return null;
         }
     }
 
-    private int scanPage(int page, List<Auction> listToAddTo) throws Exception {
-        HTTPUtil.Response response = HTTPUtil.get("https://api.hypixel.net/v2/skyblock/auctions?page=" + page);
-        JsonObject jsonResponse = JsonParser.parseString(response.response()).getAsJsonObject();
+    /**
+     * Seed the book with auctions restored from a previous run, so that the next refresh only decodes new listings.
+     * The next incremental update is always applied, as the restored book may be arbitrarily old.
+     * @param auctions An index over the restored auctions
+     */
+    public void restore(@NonNull AuctionIndex auctions) {
+        this.currentAuctions = auctions;
+        this.lastApiUpdate = 0;
+        this.seeded = true;
+    }
+
+    /**
+     * Stop the page fetching and decoding threads. Updates fail once this has been called.
+     */
+    public void shutdown() {
+        this.fetchExecutor.shutdownNow();
+        this.decodeExecutor.shutdownNow();
+    }
+
+    /**
+     * Replace the current book
+     * @param newCurrentAuctions An index over the new book
+     * @param apiUpdate The {@code lastUpdated} timestamp of the API data the book was built from
+     * @return The new book
+     */
+    private AuctionIndex publish(@NonNull AuctionIndex newCurrentAuctions, long apiUpdate) {
+        this.currentAuctions = newCurrentAuctions;
+        this.lastApiUpdate = apiUpdate;
+        return newCurrentAuctions;
+    }
+
+    /**
+     * Fetch a page of the Auction House
+     * @param page The page number to fetch
+     * @return The fetched page, or {@code null} if the API didn't return successfully
+     */
+    private AuctionPage fetchPage(int page) throws Exception {
+        AuctionPage auctionPage;
+        try (InputStream response = this.source.openAuctionPage(page)) {
+            auctionPage = AuctionPage.read(response);
+        }
 
-        if (!jsonResponse.get("success").getAsBoolean()) {
+        if (!auctionPage.success()) {
             NetworthCalculator.LOGGER.error("AH data didn't return successfully!");
-            return 0;
+            return null;
+        }
+
+        return auctionPage;
+    }
+
+    private AuctionPage fetchPageUnchecked(int page) {
+        try {
+            AuctionPage auctionPage = this.fetchPage(page);
+
+            if (auctionPage == null) {
+                throw new IllegalStateException("AH page " + page + " didn't return successfully!");
+            }
+
+            return auctionPage;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to fetch AH page " + page + "!", e);
         }
+    }
 
-        for (JsonElement auctionElement : jsonResponse.getAsJsonArray("auctions")) {
-            JsonObject auction = auctionElement.getAsJsonObject();
+    /**
+     * Decode the BIN auctions on a fetched page of the Auction House
+     * @param page The fetched page
+     * @param previousAuctions The previous book, whose rows are reused rather than decoded again
+     * @return The BIN auctions on the page
+     */
+    private DecodedPage decodePage(@NonNull AuctionPage page, @NonNull AuctionIndex previousAuctions) {
+        List<Auction> decoded = new ArrayList<>();
+        int[] reusedRows = new int[page.auctions().size()];
+        int reused = 0;
 
-            if (auction.has("bin") && auction.get("bin").getAsBoolean()) {
-                listToAddTo.add(Auction.fromApiEntry(auction));
+        for (AuctionPage.Entry entry : page.auctions()) {
+            int previous = previousAuctions.findRow(entry.uuid());
+            if (previous >= 0) {
+                reusedRows[reused++] = previous;
+            } else {
+                decoded.add(Auction.fromEntry(entry));
             }
         }
 
-        return jsonResponse.get("totalPages").getAsInt();
+        return new DecodedPage(decoded, Arrays.copyOf(reusedRows, reused));
     }
 
-    public record Auction(Item item, double price) {
-        public static Auction fromApiEntry(JsonObject apiEntry) {
-            return new Auction(Item.fromBytes(apiEntry.get("item_bytes").getAsString()),
-                apiEntry.get("starting_bid").getAsDouble());
+    /**
+     * The BIN auctions on a page of the Auction House
+     * @param decoded The auctions that were newly decoded
+     * @param reusedRows The rows of the previous book holding the rest of the page's auctions
+     */
+    private record DecodedPage(List<Auction> decoded, int[] reusedRows) {}
+
+    /**
+     * A BIN auction on the Auction House
+     * @param uuid The UUID of the auction
+     * @param item The item being sold
+     * @param price The BIN price of the auction
+     * @param end The time at which the auction expires, in milliseconds since the epoch
+     */
+    public record Auction(String uuid, Item item, double price, long end) {
+        public static Auction fromEntry(AuctionPage.Entry entry) {
+            return new Auction(entry.uuid(), Item.fromBytes(entry.itemBytes()), entry.price(), entry.end());
         }
     }
 }
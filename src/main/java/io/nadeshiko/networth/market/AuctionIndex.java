@@ -0,0 +1,997 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.item.Gemstone;
+import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.item.ItemFeatures;
+import io.nadeshiko.networth.item.ItemSimilarity;
+import io.nadeshiko.networth.util.PatternUtil;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.ToDoubleFunction;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * An immutable, columnar index over a set of BIN auctions, built once per Auction House refresh
+ * <p>
+ * Every field of every auction is stored in a primitive column indexed by row, rather than as an object graph: item
+ * IDs, reforges and dyes are interned to {@link Item#IDS} ordinals, and enchantments and gemstone slots to
+ * {@link Item#NAMES} ordinals, so rows can be copied between indexes and from items as is, small modifiers are packed
+ * into a single long, and the variable-length enchantments, gemstones and unlocked slots of all rows share one arena
+ * each. This keeps the whole Auction House in a few dozen arrays, and lets lookups scan rows without following
+ * pointers. {@link AuctionHandler.Auction} objects are only created for the rows a lookup returns.
+ * <p>
+ * Rows are grouped by item ID, and each group is sorted by ascending price. This makes a cheapest lookup for an exact
+ * ID a single map lookup, and limits closest-match lookups to the rows that share the item's ID.
+ */
+public class AuctionIndex {
+
+    /**
+     * An index containing no auctions, used before the first refresh completes
+     */
+    public static final AuctionIndex EMPTY = new AuctionIndex(List.of());
+
+    /**
+     * Layout of {@link AuctionIndex#modifiers}, from the lowest bit: hot potato books, fuming potato books and upgrade
+     * level as a byte each, then a byte of flags, then the count
+     */
+    private static final int FUMING_POTATO_BOOKS_SHIFT = 8;
+    private static final int UPGRADE_LEVEL_SHIFT = 16;
+    private static final int FLAGS_SHIFT = 24;
+    private static final int COUNT_SHIFT = 32;
+
+
+    /**
+     * Columns, indexed by row
+     */
+    private final String[] uuids;
+    private final double[] prices;
+    private final long[] ends;
+    private final int[] itemIds;
+    private final long[] modifiers;
+    private final int[] reforges; // -1 if none
+    private final int[] dyes; // -1 if none
+
+    /**
+     * Enchantments as (ordinal, level) pairs sorted by ordinal. The pairs of row {@code r} are
+     * {@code enchantments[2 * enchantmentStart[r]]} up to {@code enchantments[2 * enchantmentStart[r + 1]]}.
+     */
+    private final int[] enchantmentStart;
+    private final int[] enchantments;
+
+    /**
+     * {@link Gemstone#pack() Packed} gemstones, {@link Gemstone#sort sorted}. The gemstones of row {@code r} are
+     * {@code gemstones[gemstoneStart[r]]} up to {@code gemstones[gemstoneStart[r + 1]]}.
+     */
+    private final int[] gemstoneStart;
+    private final byte[] gemstones;
+
+    /**
+     * Unlocked gemstone slots, as interned slot names sorted by ordinal
+     */
+    private final int[] slotStart;
+    private final int[] slots;
+
+    /**
+     * The {@link ItemFeatures#getEnchantmentSignature() enchantment} and
+     * {@link ItemFeatures#getGemstoneSignature() gemstone} signatures of each row, computed once per index so that
+     * lookups can reject most rows without walking their enchantments and gemstones
+     */
+    private final long[] enchantmentSignatures;
+    private final long[] gemstoneSignatures;
+
+    /**
+     * Rows sorted by UUID, to find the row of an auction by binary search
+     */
+    private final int[] rowsByUuid;
+
+    /**
+     * A map of item ID -> the rows of that item, sorted by ascending price
+     */
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    /**
+     * All item IDs present in this index, sorted so that IDs sharing a prefix can be found as a range
+     */
+    private final NavigableSet<String> ids = new TreeSet<>();
+
+    /**
+     * A membership table of Regex expression -> item IDs in this index that match it, filled on first use
+     */
+    private final Map<String, List<String>> patternMembers = new ConcurrentHashMap<>();
+
+    /**
+     * The craft costs of the items of the rows, cached against a single market snapshot at a time, see
+     * {@link AuctionIndex#findReference}
+     */
+    private volatile CraftCosts craftCosts;
+
+    /**
+     * Build a new index over the provided auctions
+     * @param auctions The auctions to index. Auctions without a decoded item are ignored.
+     */
+    public AuctionIndex(@NonNull Collection<AuctionHandler.Auction> auctions) {
+        this(builder(auctions));
+    }
+
+    private AuctionIndex(@NonNull Builder builder) {
+        int[] kept = builder.dedupeByUuid();
+
+        // group rows by item ID, cheapest first
+        int[] order = kept.clone();
+        sortRows(order, (a, b) -> {
+            int comparison = Integer.compare(builder.itemIds[a], builder.itemIds[b]);
+            if (comparison == 0) {
+                comparison = Double.compare(builder.prices[a], builder.prices[b]);
+            }
+            return comparison != 0 ? comparison : builder.uuids[a].compareTo(builder.uuids[b]);
+        });
+
+        int size = order.length;
+        this.uuids = new String[size];
+        this.prices = new double[size];
+        this.ends = new long[size];
+        this.itemIds = new int[size];
+        this.modifiers = new long[size];
+        this.reforges = new int[size];
+        this.dyes = new int[size];
+        this.enchantmentStart = new int[size + 1];
+        this.enchantmentSignatures = new long[size];
+        this.gemstoneSignatures = new long[size];
+        this.gemstoneStart = new int[size + 1];
+        this.slotStart = new int[size + 1];
+
+        // size the arenas to the rows kept, as duplicate rows are dropped
+        int enchantmentCount = 0;
+        int gemstoneCount = 0;
+        int slotCount = 0;
+        for (int source : kept) {
+            enchantmentCount += builder.enchantmentStart[source + 1] - builder.enchantmentStart[source];
+            gemstoneCount += builder.gemstoneStart[source + 1] - builder.gemstoneStart[source];
+            slotCount += builder.slotStart[source + 1] - builder.slotStart[source];
+        }
+        this.enchantments = new int[enchantmentCount * 2];
+        this.gemstones = new byte[gemstoneCount];
+        this.slots = new int[slotCount];
+        enchantmentCount = 0;
+        gemstoneCount = 0;
+        slotCount = 0;
+
+        int[] newRows = new int[builder.size];
+
+        for (int row = 0; row < size; row++) {
+            int source = order[row];
+            newRows[source] = row;
+
+            this.uuids[row] = builder.uuids[source];
+            this.prices[row] = builder.prices[source];
+            this.ends[row] = builder.ends[source];
+            this.itemIds[row] = builder.itemIds[source];
+            this.modifiers[row] = builder.modifiers[source];
+            this.reforges[row] = builder.reforges[source];
+            this.dyes[row] = builder.dyes[source];
+
+            this.enchantmentStart[row] = enchantmentCount;
+            int from = builder.enchantmentStart[source];
+            int count = builder.enchantmentStart[source + 1] - from;
+            System.arraycopy(builder.enchantments, from * 2, this.enchantments, enchantmentCount * 2, count * 2);
+            for (int i = enchantmentCount; i < enchantmentCount + count; i++) {
+                this.enchantmentSignatures[row] |= ItemFeatures.enchantmentBit(this.enchantments[2 * i]);
+            }
+            enchantmentCount += count;
+
+            this.gemstoneStart[row] = gemstoneCount;
+            from = builder.gemstoneStart[source];
+            count = builder.gemstoneStart[source + 1] - from;
+            System.arraycopy(builder.gemstones, from, this.gemstones, gemstoneCount, count);
+            for (int i = gemstoneCount; i < gemstoneCount + count; i++) {
+                this.gemstoneSignatures[row] |= ItemFeatures.gemstoneBit(this.gemstones[i]);
+            }
+            gemstoneCount += count;
+
+            this.slotStart[row] = slotCount;
+            from = builder.slotStart[source];
+            count = builder.slotStart[source + 1] - from;
+            System.arraycopy(builder.slots, from, this.slots, slotCount, count);
+            for (int i = slotCount; i < slotCount + count; i++) {
+                this.gemstoneSignatures[row] |= ItemFeatures.slotBit(this.slots[i]);
+            }
+            slotCount += count;
+        }
+        this.enchantmentStart[size] = enchantmentCount;
+        this.gemstoneStart[size] = gemstoneCount;
+        this.slotStart[size] = slotCount;
+
+        // kept is sorted by UUID already
+        this.rowsByUuid = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.rowsByUuid[i] = newRows[kept[i]];
+        }
+
+        for (int row = 0; row < size; ) {
+            int end = row + 1;
+            while (end < size && this.itemIds[end] == this.itemIds[row]) {
+                end++;
+            }
+
+            String id = Item.IDS.name(this.itemIds[row]);
+            this.buckets.put(id, new Bucket(row, end));
+            this.ids.add(id);
+            row = end;
+        }
+    }
+
+    /**
+     * @return A new, empty {@link Builder}
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private static Builder builder(@NonNull Collection<AuctionHandler.Auction> auctions) {
+        Builder builder = new Builder();
+        auctions.forEach(builder::add);
+        return builder;
+    }
+
+    /**
+     * Find the auction most similar to the provided item, by the {@link ItemSimilarity#standard() standard} similarity
+     * @param item The {@link Item} to find a match for
+     * @return The most similar auction, or {@code null} if no auction of the same item exists
+     */
+    public AuctionHandler.Auction findClosest(@NonNull Item item) {
+        return this.findClosest(item, ItemSimilarity.standard());
+    }
+
+    /**
+     * Find the auction most similar to the provided item
+     * @param item The {@link Item} to find a match for
+     * @param similarity The {@link ItemSimilarity} to score auctions with
+     * @return The most similar auction, or {@code null} if no auction of the same item matches
+     */
+    public AuctionHandler.Auction findClosest(@NonNull Item item, @NonNull ItemSimilarity similarity) {
+        Bucket bucket = this.buckets.get(item.getId());
+
+        if (bucket == null) {
+            return null;
+        }
+
+        int[] rows = new int[1];
+        return this.search(ItemFeatures.of(item), similarity, bucket, rows) == 0 ? null : this.auction(rows[0]);
+    }
+
+    /**
+     * Find the auctions most similar to the provided item, by the {@link ItemSimilarity#standard() standard}
+     * similarity
+     * @param item The {@link Item} to find matches for
+     * @param limit The maximum number of auctions to return
+     * @return Up to {@code limit} auctions of the same item, most similar first. Equally similar auctions are ordered
+     * by ascending price.
+     */
+    public List<AuctionHandler.Auction> findClosest(@NonNull Item item, int limit) {
+        return this.findClosest(item, ItemSimilarity.standard(), limit);
+    }
+
+    /**
+     * Find the auctions most similar to the provided item
+     * @param item The {@link Item} to find matches for
+     * @param similarity The {@link ItemSimilarity} to score auctions with
+     * @param limit The maximum number of auctions to return
+     * @return Up to {@code limit} auctions of the same item, most similar first. Equally similar auctions are ordered
+     * by ascending price.
+     */
+    public List<AuctionHandler.Auction> findClosest(@NonNull Item item, @NonNull ItemSimilarity similarity,
+                                                    int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1, got " + limit + "!");
+        }
+
+        Bucket bucket = this.buckets.get(item.getId());
+
+        if (bucket == null) {
+            return List.of();
+        }
+
+        int[] rows = new int[Math.min(limit, bucket.to() - bucket.from())];
+        int count = this.search(ItemFeatures.of(item), similarity, bucket, rows);
+        return Arrays.stream(rows, 0, count).mapToObj(this::auction).toList();
+    }
+
+    /**
+     * Find the auction most similar to the provided item, along with the craft cost of its item
+     * <p>
+     * Craft costs only change with market prices, yet a popular listing is the reference of thousands of valuations,
+     * so they are cached per row. Costs are cached against one snapshot at a time: the first lookup against a newer
+     * snapshot, i.e. once Bazaar prices refresh, drops every cost cached for the previous one. Lookups against an older
+     * snapshot than the cached one compute costs without caching them. The matched auction is only created if its
+     * cost isn't cached yet.
+     * @param item The {@link Item} to find a match for
+     * @param similarity The {@link ItemSimilarity} to score auctions with
+     * @param market The {@link MarketSnapshot} craft costs are computed against, which must hold this index
+     * @param craftCost Computes the craft cost of an item against {@code market}
+     * @return The price and craft cost of the most similar auction, or {@code null} if no auction of the same item
+     * matches
+     */
+    public Reference findReference(@NonNull Item item, @NonNull ItemSimilarity similarity,
+                                   @NonNull MarketSnapshot market, @NonNull ToDoubleFunction<Item> craftCost) {
+        Bucket bucket = this.buckets.get(item.getId());
+
+        if (bucket == null) {
+            return null;
+        }
+
+        int[] rows = new int[1];
+        if (this.search(ItemFeatures.of(item), similarity, bucket, rows) == 0) {
+            return null;
+        }
+        int row = rows[0];
+
+        CraftCosts cached = this.craftCosts;
+        if (cached == null || cached.market.version() < market.version()) {
+            // racing threads may both replace the costs, which only loses a few cached costs
+            cached = new CraftCosts(market, this.size());
+            this.craftCosts = cached;
+        }
+
+        if (cached.market != market) { // an older snapshot, whose costs are no longer cached
+            return new Reference(this.prices[row], craftCost.applyAsDouble(this.auction(row).item()));
+        }
+
+        double cost = cached.get(row);
+        if (Double.isNaN(cost)) {
+            // racing threads may both compute the same cost, which is harmless
+            cost = craftCost.applyAsDouble(this.auction(row).item());
+            cached.set(row, cost);
+        }
+
+        return new Reference(this.prices[row], cost);
+    }
+
+    /**
+     * Scan a bucket for the rows most similar to a queried item
+     * <p>
+     * Every row is scored through the same {@link Row} view, with the penalty of the least similar row kept so far as
+     * the bound, so that the similarity can reject rows as soon as they can't be kept.
+     * @param query The features of the queried item
+     * @param similarity The {@link ItemSimilarity} to score rows with
+     * @param bucket The rows to scan
+     * @param rows Filled with the most similar rows, most similar first, and equally similar rows in price order
+     * @return The number of rows found, at most the length of {@code rows}
+     */
+    private int search(@NonNull ItemFeatures query, @NonNull ItemSimilarity similarity, @NonNull Bucket bucket,
+                       int @NonNull [] rows) {
+        Row listing = new Row();
+        int[] penalties = new int[rows.length];
+        int count = 0;
+        int threshold = ItemSimilarity.NO_MATCH; // what a row must score below to be kept
+
+        for (int row = bucket.from(); row < bucket.to(); row++) {
+            listing.row = row;
+            int penalty = similarity.penalty(listing, query, threshold);
+
+            if (penalty >= threshold) {
+                continue; // can't beat the rows kept so far
+            }
+
+            // insert after every kept row that is at least as similar, dropping the least similar if full
+            int index = count < rows.length ? count++ : count - 1;
+            while (index > 0 && penalties[index - 1] > penalty) {
+                rows[index] = rows[index - 1];
+                penalties[index] = penalties[index - 1];
+                index--;
+            }
+            rows[index] = row;
+            penalties[index] = penalty;
+
+            if (count == rows.length) {
+                threshold = penalties[count - 1];
+
+                if (threshold == 0) {
+                    break; // only perfect matches are kept, which nothing can beat
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Find the cheapest auction of an item
+     * @param id The item ID, or a Regex expression matching item IDs
+     * @return The cheapest matching auction, or {@code null} if none exist
+     */
+    public AuctionHandler.Auction findCheapest(@NonNull String id) {
+        int row = this.findCheapestRow(id);
+        return row < 0 ? null : this.auction(row);
+    }
+
+    /**
+     * Find the price of the cheapest auction of an item, without creating an {@link AuctionHandler.Auction}
+     * @param id The item ID, or a Regex expression matching item IDs
+     * @return The price of the cheapest matching auction, or {@link Double#NaN} if none exist
+     */
+    public double findCheapestPrice(@NonNull String id) {
+        int row = this.findCheapestRow(id);
+        return row < 0 ? Double.NaN : this.prices[row];
+    }
+
+    private int findCheapestRow(@NonNull String id) {
+        Bucket exact = this.buckets.get(id);
+
+        if (exact != null) {
+            return exact.from();
+        }
+
+        if (PatternUtil.isLiteral(id)) {
+            return -1; // an exact ID that isn't listed
+        }
+
+        int cheapest = -1;
+
+        for (String member : this.patternMembers.computeIfAbsent(id, this::findMembers)) {
+            int candidate = this.buckets.get(member).from();
+            if (cheapest < 0 || this.prices[candidate] < this.prices[cheapest]) {
+                cheapest = candidate;
+            }
+        }
+
+        return cheapest;
+    }
+
+    /**
+     * Find all item IDs in this index matched by a Regex expression
+     * <p>
+     * Only IDs starting with the expression's literal prefix are tested against it.
+     * @param regex The Regex expression to match
+     * @return The matching item IDs
+     */
+    private List<String> findMembers(@NonNull String regex) {
+        Pattern pattern = PatternUtil.compile(regex);
+        String prefix = PatternUtil.literalPrefix(regex);
+        List<String> members = new ArrayList<>();
+
+        NavigableSet<String> candidates = prefix.isEmpty() ? this.ids :
+            this.ids.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+
+        for (String candidate : candidates) {
+            if (pattern.matcher(candidate).matches()) {
+                members.add(candidate);
+            }
+        }
+
+        return List.copyOf(members);
+    }
+
+    /**
+     * Get all auctions of a given item. Every call creates new {@link AuctionHandler.Auction} objects.
+     * @param id The ID of the item
+     * @return A list of auctions of the item, sorted by ascending price
+     */
+    public List<AuctionHandler.Auction> getAuctions(@NonNull String id) {
+        Bucket bucket = this.buckets.get(id);
+
+        if (bucket == null) {
+            return List.of();
+        }
+
+        return IntStream.range(bucket.from(), bucket.to()).mapToObj(this::auction).toList();
+    }
+
+    /**
+     * @return A stream of every auction in this index, grouped by item ID. Every auction is created on demand.
+     */
+    public Stream<AuctionHandler.Auction> stream() {
+        return IntStream.range(0, this.size()).mapToObj(this::auction);
+    }
+
+    /**
+     * @return The total number of auctions in this index
+     */
+    public int size() {
+        return this.uuids.length;
+    }
+
+    /**
+     * Find the row of an auction
+     * @param uuid The UUID of the auction
+     * @return The row of the auction, or -1 if it isn't in this index
+     */
+    int findRow(@NonNull String uuid) {
+        int low = 0;
+        int high = this.rowsByUuid.length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = this.uuids[this.rowsByUuid[middle]].compareTo(uuid);
+
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return this.rowsByUuid[middle];
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param row A row of this index
+     * @return The UUID of the auction in the row
+     */
+    String uuid(int row) {
+        return this.uuids[row];
+    }
+
+    /**
+     * @param row A row of this index
+     * @return The BIN price of the auction in the row
+     */
+    double price(int row) {
+        return this.prices[row];
+    }
+
+    /**
+     * @param row A row of this index
+     * @return The time at which the auction in the row expires, in milliseconds since the epoch
+     */
+    long end(int row) {
+        return this.ends[row];
+    }
+
+    /**
+     * @param row A row of this index
+     * @return The ID of the item in the row
+     */
+    String itemId(int row) {
+        return Item.IDS.name(this.itemIds[row]);
+    }
+
+    /**
+     * @param row A row of this index
+     * @return The stack size of the item in the row
+     */
+    int count(int row) {
+        return (int) (this.modifiers[row] >>> COUNT_SHIFT);
+    }
+
+    /**
+     * @return A view of the item features of rows, to read rows without creating their items. Move it to a row with
+     * {@link Row#moveTo(int)} before reading it.
+     */
+    Row features() {
+        return new Row();
+    }
+
+    /**
+     * Create the auction stored in a row
+     * @param row A row of this index
+     * @return A new {@link AuctionHandler.Auction}
+     */
+    AuctionHandler.Auction auction(int row) {
+        long modifiers = this.modifiers[row];
+        int flags = (int) (modifiers >>> FLAGS_SHIFT) & 0xFF;
+
+        Item item = new Item(
+            (int) (modifiers >>> COUNT_SHIFT),
+            Item.IDS.name(this.itemIds[row]),
+            (int) modifiers & 0xFF,
+            (int) (modifiers >>> FUMING_POTATO_BOOKS_SHIFT) & 0xFF,
+            (flags & ItemFeatures.ART_OF_WAR) != 0,
+            (flags & ItemFeatures.ART_OF_PEACE) != 0,
+            (flags & ItemFeatures.RECOMBOBULATED) != 0,
+            (flags & ItemFeatures.ENRICHED) != 0,
+            this.reforges[row] < 0 ? null : Item.IDS.name(this.reforges[row]),
+            this.dyes[row] < 0 ? null : Item.IDS.name(this.dyes[row]),
+            (flags & ItemFeatures.DUNGEONIZED) != 0,
+            (int) (modifiers >>> UPGRADE_LEVEL_SHIFT) & 0xFF
+        );
+
+        for (int i = this.enchantmentStart[row]; i < this.enchantmentStart[row + 1]; i++) {
+            item.putEnchantment(Item.NAMES.name(this.enchantments[2 * i]), this.enchantments[2 * i + 1]);
+        }
+
+        for (int i = this.gemstoneStart[row]; i < this.gemstoneStart[row + 1]; i++) {
+            item.addGemstone(Gemstone.unpack(this.gemstones[i]));
+        }
+
+        for (int i = this.slotStart[row]; i < this.slotStart[row + 1]; i++) {
+            item.addUnlockedGemstoneSlot(Item.NAMES.name(this.slots[i]));
+        }
+
+        return new AuctionHandler.Auction(this.uuids[row], item, this.prices[row], this.ends[row]);
+    }
+
+    /**
+     * Compares two rows by their columns
+     */
+    @FunctionalInterface
+    private interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    /**
+     * Stably sort rows, without boxing them as {@link Comparator} sorts would
+     * @param rows The rows to sort
+     * @param order The order to sort them in
+     */
+    private static void sortRows(int @NonNull [] rows, @NonNull RowOrder order) {
+        mergeSort(rows, rows.clone(), 0, rows.length, order);
+    }
+
+    /**
+     * Merge sort {@code rows[from, to)}, using the same range of {@code buffer}, which holds the same rows, as scratch
+     */
+    private static void mergeSort(int[] rows, int[] buffer, int from, int to, RowOrder order) {
+        if (to - from <= 16) { // insertion sort small ranges
+            for (int i = from + 1; i < to; i++) {
+                int row = rows[i];
+                int j = i;
+                while (j > from && order.compare(rows[j - 1], row) > 0) {
+                    rows[j] = rows[j - 1];
+                    j--;
+                }
+                rows[j] = row;
+            }
+            return;
+        }
+
+        // sort both halves of the buffer, then merge them into rows
+        int middle = (from + to) >>> 1;
+        mergeSort(buffer, rows, from, middle, order);
+        mergeSort(buffer, rows, middle, to, order);
+
+        if (order.compare(buffer[middle - 1], buffer[middle]) <= 0) {
+            System.arraycopy(buffer, from, rows, from, to - from); // already in order
+            return;
+        }
+
+        for (int i = from, left = from, right = middle; i < to; i++) {
+            if (right >= to || left < middle && order.compare(buffer[left], buffer[right]) <= 0) {
+                rows[i] = buffer[left++];
+            } else {
+                rows[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+     * The closest match of an item, as found by {@link AuctionIndex#findReference}
+     * @param price The BIN price of the matched auction
+     * @param craftCost The craft cost of the matched auction's item
+     */
+    public record Reference(double price, double craftCost) {}
+
+    /**
+     * The craft costs of every row against a snapshot, {@code NaN} until computed
+     * <p>
+     * Costs are shared between threads without locking, so they are stored as the bits of each double and accessed
+     * with opaque mode, which never tears a value the way plain {@code double} writes may.
+     */
+    private static final class CraftCosts {
+        private static final long NOT_COMPUTED = Double.doubleToRawLongBits(Double.NaN);
+
+        private final MarketSnapshot market;
+        private final AtomicLongArray costs;
+
+        private CraftCosts(@NonNull MarketSnapshot market, int size) {
+            this.market = market;
+            this.costs = new AtomicLongArray(size);
+            for (int row = 0; row < size; row++) {
+                this.costs.setPlain(row, NOT_COMPUTED); // published by the volatile write of AuctionIndex#craftCosts
+            }
+        }
+
+        private double get(int row) {
+            return Double.longBitsToDouble(this.costs.getOpaque(row));
+        }
+
+        private void set(int row, double cost) {
+            this.costs.setOpaque(row, Double.doubleToRawLongBits(cost));
+        }
+    }
+
+    /**
+     * The rows of a single item ID
+     * @param from The first row, the cheapest auction
+     * @param to The row after the last row
+     */
+    private record Bucket(int from, int to) {}
+
+    /**
+     * The {@link ItemFeatures} of a row, moved from row to row during a scan rather than created per row
+     */
+    final class Row implements ItemFeatures {
+        private int row;
+
+        /**
+         * @param row A row of this index
+         * @return This view, moved to the row
+         */
+        Row moveTo(int row) {
+            this.row = row;
+            return this;
+        }
+
+        @Override
+        public int getHotPotatoBooks() {
+            return (int) AuctionIndex.this.modifiers[this.row] & 0xFF;
+        }
+
+        @Override
+        public int getFumingPotatoBooks() {
+            return (int) (AuctionIndex.this.modifiers[this.row] >>> FUMING_POTATO_BOOKS_SHIFT) & 0xFF;
+        }
+
+        @Override
+        public int getUpgradeLevel() {
+            return (int) (AuctionIndex.this.modifiers[this.row] >>> UPGRADE_LEVEL_SHIFT) & 0xFF;
+        }
+
+        @Override
+        public int getFlags() {
+            return (int) (AuctionIndex.this.modifiers[this.row] >>> FLAGS_SHIFT) & 0xFF;
+        }
+
+        @Override
+        public int getReforge() {
+            return AuctionIndex.this.reforges[this.row];
+        }
+
+        @Override
+        public int getDye() {
+            return AuctionIndex.this.dyes[this.row];
+        }
+
+        @Override
+        public int getEnchantmentCount() {
+            return AuctionIndex.this.enchantmentStart[this.row + 1] - AuctionIndex.this.enchantmentStart[this.row];
+        }
+
+        @Override
+        public int getEnchantmentOrdinal(int index) {
+            return AuctionIndex.this.enchantments[2 * (AuctionIndex.this.enchantmentStart[this.row] + index)];
+        }
+
+        @Override
+        public int getEnchantmentLevel(int index) {
+            return AuctionIndex.this.enchantments[2 * (AuctionIndex.this.enchantmentStart[this.row] + index) + 1];
+        }
+
+        @Override
+        public long getEnchantmentSignature() {
+            return AuctionIndex.this.enchantmentSignatures[this.row];
+        }
+
+        @Override
+        public int getGemstoneCount() {
+            return AuctionIndex.this.gemstoneStart[this.row + 1] - AuctionIndex.this.gemstoneStart[this.row];
+        }
+
+        @Override
+        public int getPackedGemstone(int index) {
+            return AuctionIndex.this.gemstones[AuctionIndex.this.gemstoneStart[this.row] + index] & 0xFF;
+        }
+
+        @Override
+        public int getUnlockedGemstoneSlotCount() {
+            return AuctionIndex.this.slotStart[this.row + 1] - AuctionIndex.this.slotStart[this.row];
+        }
+
+        @Override
+        public int getUnlockedGemstoneSlotOrdinal(int index) {
+            return AuctionIndex.this.slots[AuctionIndex.this.slotStart[this.row] + index];
+        }
+
+        @Override
+        public long getGemstoneSignature() {
+            return AuctionIndex.this.gemstoneSignatures[this.row];
+        }
+    }
+
+    /**
+     * Collects rows for a new {@link AuctionIndex}, either from decoded auctions or copied from an existing index
+     * <p>
+     * If several rows share a UUID, only the first one added is kept.
+     */
+    public static class Builder {
+        private int size = 0;
+
+        private String[] uuids = new String[64];
+        private double[] prices = new double[64];
+        private long[] ends = new long[64];
+        private int[] itemIds = new int[64];
+        private long[] modifiers = new long[64];
+        private int[] reforges = new int[64];
+        private int[] dyes = new int[64];
+
+        private int[] enchantmentStart = new int[65];
+        private int[] enchantments = new int[128];
+        private int[] gemstoneStart = new int[65];
+        private byte[] gemstones = new byte[64];
+        private int[] slotStart = new int[65];
+        private int[] slots = new int[64];
+
+        private Builder() {
+        }
+
+        /**
+         * Add a decoded auction. Auctions without a decoded item are ignored.
+         * @param auction The auction to add
+         * @return This builder
+         */
+        public Builder add(@NonNull AuctionHandler.Auction auction) {
+            Item item = auction.item();
+
+            if (item == null) {
+                return this; // the item data failed to decode
+            }
+
+            int row = this.newRow();
+            this.uuids[row] = auction.uuid();
+            this.prices[row] = auction.price();
+            this.ends[row] = auction.end();
+            this.itemIds[row] = Item.IDS.intern(item.getId());
+            this.modifiers[row] = (long) item.getCount() << COUNT_SHIFT |
+                (long) ItemFeatures.flags(item) << FLAGS_SHIFT |
+                (long) clamp(item.getUpgradeLevel()) << UPGRADE_LEVEL_SHIFT |
+                (long) clamp(item.getFumingPotatoBooks()) << FUMING_POTATO_BOOKS_SHIFT |
+                clamp(item.getHotPotatoBooks());
+            this.reforges[row] = item.getReforge() == null ? -1 : Item.IDS.intern(item.getReforge());
+            this.dyes[row] = item.getDye() == null ? -1 : Item.IDS.intern(item.getDye());
+
+            // items keep their enchantments, gemstones and slots sorted already
+            int count = item.getEnchantmentCount();
+            int offset = this.enchantmentStart[row];
+            this.enchantments = ensure(this.enchantments, (offset + count) * 2);
+            for (int i = 0; i < count; i++) {
+                this.enchantments[2 * (offset + i)] = item.getEnchantmentOrdinal(i);
+                this.enchantments[2 * (offset + i) + 1] = item.getEnchantmentLevel(i);
+            }
+            this.enchantmentStart[row + 1] = offset + count;
+
+            count = item.getGemstoneCount();
+            offset = this.gemstoneStart[row];
+            if (offset + count > this.gemstones.length) {
+                this.gemstones = Arrays.copyOf(this.gemstones, Math.max(offset + count, this.gemstones.length * 2));
+            }
+            for (int i = 0; i < count; i++) {
+                this.gemstones[offset + i] = (byte) item.getPackedGemstone(i);
+            }
+            this.gemstoneStart[row + 1] = offset + count;
+
+            count = item.getUnlockedGemstoneSlotCount();
+            offset = this.slotStart[row];
+            this.slots = ensure(this.slots, offset + count);
+            for (int i = 0; i < count; i++) {
+                this.slots[offset + i] = item.getUnlockedGemstoneSlotOrdinal(i);
+            }
+            this.slotStart[row + 1] = offset + count;
+
+            return this;
+        }
+
+        /**
+         * Copy a row of an existing index, without creating its auction
+         * @param index The index to copy from
+         * @param row The row to copy
+         * @return This builder
+         */
+        public Builder add(@NonNull AuctionIndex index, int row) {
+            int target = this.newRow();
+            this.uuids[target] = index.uuids[row];
+            this.prices[target] = index.prices[row];
+            this.ends[target] = index.ends[row];
+            this.itemIds[target] = index.itemIds[row];
+            this.modifiers[target] = index.modifiers[row];
+            this.reforges[target] = index.reforges[row];
+            this.dyes[target] = index.dyes[row];
+
+            int from = index.enchantmentStart[row];
+            int count = index.enchantmentStart[row + 1] - from;
+            int offset = this.enchantmentStart[target];
+            this.enchantments = ensure(this.enchantments, (offset + count) * 2);
+            System.arraycopy(index.enchantments, from * 2, this.enchantments, offset * 2, count * 2);
+            this.enchantmentStart[target + 1] = offset + count;
+
+            from = index.gemstoneStart[row];
+            count = index.gemstoneStart[row + 1] - from;
+            offset = this.gemstoneStart[target];
+            if (offset + count > this.gemstones.length) {
+                this.gemstones = Arrays.copyOf(this.gemstones, Math.max(offset + count, this.gemstones.length * 2));
+            }
+            System.arraycopy(index.gemstones, from, this.gemstones, offset, count);
+            this.gemstoneStart[target + 1] = offset + count;
+
+            from = index.slotStart[row];
+            count = index.slotStart[row + 1] - from;
+            offset = this.slotStart[target];
+            this.slots = ensure(this.slots, offset + count);
+            System.arraycopy(index.slots, from, this.slots, offset, count);
+            this.slotStart[target + 1] = offset + count;
+
+            return this;
+        }
+
+        /**
+         * @return A new {@link AuctionIndex} over the rows added so far
+         */
+        public AuctionIndex build() {
+            return new AuctionIndex(this);
+        }
+
+        /**
+         * @return The rows to keep, the first of each UUID, sorted by UUID
+         */
+        private int[] dedupeByUuid() {
+            int[] byUuid = new int[this.size];
+            for (int i = 0; i < this.size; i++) {
+                byUuid[i] = i;
+            }
+            sortRows(byUuid, (a, b) -> this.uuids[a].compareTo(this.uuids[b])); // stable, so rows stay in added order
+
+            int[] kept = new int[this.size];
+            int count = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (count == 0 || !this.uuids[byUuid[i]].equals(this.uuids[kept[count - 1]])) {
+                    kept[count++] = byUuid[i];
+                }
+            }
+            return Arrays.copyOf(kept, count);
+        }
+
+        private int newRow() {
+            if (this.size == this.uuids.length) {
+                int capacity = this.size * 2;
+                this.uuids = Arrays.copyOf(this.uuids, capacity);
+                this.prices = Arrays.copyOf(this.prices, capacity);
+                this.ends = Arrays.copyOf(this.ends, capacity);
+                this.itemIds = Arrays.copyOf(this.itemIds, capacity);
+                this.modifiers = Arrays.copyOf(this.modifiers, capacity);
+                this.reforges = Arrays.copyOf(this.reforges, capacity);
+                this.dyes = Arrays.copyOf(this.dyes, capacity);
+                this.enchantmentStart = Arrays.copyOf(this.enchantmentStart, capacity + 1);
+                this.gemstoneStart = Arrays.copyOf(this.gemstoneStart, capacity + 1);
+                this.slotStart = Arrays.copyOf(this.slotStart, capacity + 1);
+            }
+            return this.size++;
+        }
+
+        private static int[] ensure(int @NonNull [] array, int length) {
+            return length <= array.length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+        }
+
+        /**
+         * Clamp a modifier into its byte of the packed modifiers
+         */
+        private static int clamp(int value) {
+            return Math.max(0, Math.min(value, 0xFF));
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import com.google.gson.stream.JsonReader;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A page of the Auction House, reduced to the fields needed to price items
+ * @param success Whether the API returned successfully
+ * @param totalPages The total number of pages on the Auction House
+ * @param lastUpdated The time at which the API data was last updated, in milliseconds since the epoch
+ * @param auctions The BIN auctions on this page. Non-BIN auctions are dropped while reading.
+ */
+public record AuctionPage(boolean success, int totalPages, long lastUpdated, @NonNull List<Entry> auctions) {
+
+    /**
+     * Stream a {@code /skyblock/auctions} page, keeping only the fields of BIN auctions needed for pricing. Lore,
+     * bids and every other field are skipped without being materialized.
+     * @param inputStream The response body
+     * @return The read {@link AuctionPage}
+     * @throws IOException If the response couldn't be read or isn't valid JSON
+     */
+    public static AuctionPage read(@NonNull InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        boolean success = false;
+        int totalPages = 0;
+        long lastUpdated = 0;
+        List<Entry> auctions = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "success" -> success = reader.nextBoolean();
+                case "totalPages" -> totalPages = reader.nextInt();
+                case "lastUpdated" -> lastUpdated = reader.nextLong();
+                case "auctions" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        Entry entry = readEntry(reader);
+                        if (entry != null) {
+                            auctions.add(entry);
+                        }
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return new AuctionPage(success, totalPages, lastUpdated, auctions);
+    }
+
+    /**
+     * Stream a {@code /skyblock/auctions_ended} response, keeping only the IDs of the ended auctions
+     * @param inputStream The response body
+     * @return The UUIDs of the auctions that ended, or {@code null} if the response wasn't successful
+     * @throws IOException If the response couldn't be read or isn't valid JSON
+     */
+    public static List<String> readEnded(@NonNull InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        boolean success = false;
+        List<String> ended = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "success" -> success = reader.nextBoolean();
+                case "auctions" -> {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            if (reader.nextName().equals("auction_id")) {
+                                ended.add(reader.nextString());
+                            } else {
+                                reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    reader.endArray();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return success ? ended : null;
+    }
+
+    private static Entry readEntry(@NonNull JsonReader reader) throws IOException {
+        String uuid = null;
+        String itemBytes = null;
+        double startingBid = 0;
+        long end = 0;
+        boolean bin = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "uuid" -> uuid = reader.nextString();
+                case "item_bytes" -> itemBytes = reader.nextString();
+                case "starting_bid" -> startingBid = reader.nextDouble();
+                case "end" -> end = reader.nextLong();
+                case "bin" -> bin = reader.nextBoolean();
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return bin && uuid != null && itemBytes != null ? new Entry(uuid, startingBid, itemBytes, end) : null;
+    }
+
+    /**
+     * A BIN auction whose item hasn't been decoded yet
+     * @param uuid The UUID of the auction
+     * @param price The BIN price of the auction
+     * @param itemBytes The base64-encoded, gzipped NBT data of the item
+     * @param end The time at which the auction expires, in milliseconds since the epoch
+     */
+    public record Entry(@NonNull String uuid, double price, @NonNull String itemBytes, long end) {
+    }
+}
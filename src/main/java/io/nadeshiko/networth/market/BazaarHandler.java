@@ -13,74 +13,116 @@
 
 package io.nadeshiko.networth.market;
 
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
 import io.nadeshiko.networth.NetworthCalculator;
-import io.nadeshiko.networth.exception.NoSuchProductException;
-import io.nadeshiko.networth.util.HTTPUtil;
 import lombok.NonNull;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 public class BazaarHandler {
-    private final Map<String, JsonObject> productMap = new HashMap<>();
-    private long lastUpdateTime = 0;
+
+    /**
+     * Where Bazaar data is read from
+     */
+    private final MarketDataSource source;
 
     public BazaarHandler() {
-        this.doUpdate();
+        this(MarketManager.HYPIXEL_API_URL);
     }
 
-    public boolean hasProduct(@NonNull String id) {
-        return this.productMap.containsKey(id);
+    /**
+     * Create a new BazaarHandler fetching from the given API
+     * @param apiUrl The base URL of the API, without a trailing slash, i.e. https://api.hypixel.net/v2
+     */
+    public BazaarHandler(@NonNull String apiUrl) {
+        this(new HttpMarketDataSource(apiUrl));
     }
 
-    public JsonObject getProduct(@NonNull String id) {
-        if (System.currentTimeMillis() - this.lastUpdateTime > 1000 * 60 * 15) {
-            this.doUpdate();
-        }
-        return this.productMap.getOrDefault(id, null);
+    /**
+     * Create a new BazaarHandler reading from the given source
+     * @param source The {@link MarketDataSource} to read Bazaar data from
+     */
+    public BazaarHandler(@NonNull MarketDataSource source) {
+        this.source = source;
     }
 
-    public double getMedianPrice(@NonNull String id) throws NoSuchProductException {
-        JsonObject product = this.getProduct(id);
-
-        if (product == null) {
-            throw new NoSuchProductException("No product by the ID of " + id + " exists!");
+    /**
+     * Fetch the current state of the Bazaar
+     * @return A new {@link BazaarSnapshot}, or {@code null} if the data couldn't be fetched
+     */
+    public BazaarSnapshot doUpdate() {
+        try (InputStream response = this.source.openBazaar()) {
+            return read(response);
+        } catch (Exception e) {
+            NetworthCalculator.LOGGER.error("Failed to fetch Bazaar data!", e);
+            return null;
         }
-
-        JsonObject quickStatus = product.getAsJsonObject("quick_status");
-        return (quickStatus.get("sellPrice").getAsDouble() + quickStatus.get("buyPrice").getAsDouble()) / 2d;
     }
 
-    public double getMedianPriceUnsafe(@NonNull String id) {
-        JsonObject product = this.getProduct(id);
+    /**
+     * Stream a {@code /skyblock/bazaar} response into a price table, keeping only the quick status prices. Order
+     * summaries and every other field are skipped without being materialized.
+     * @param inputStream The response body
+     * @return A new {@link BazaarSnapshot}, or {@code null} if the response wasn't successful
+     * @throws IOException If the response couldn't be read or isn't valid JSON
+     */
+    public static BazaarSnapshot read(@NonNull InputStream inputStream) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        BazaarSnapshot.Builder builder = BazaarSnapshot.builder();
+        boolean success = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "success" -> success = reader.nextBoolean();
+                case "products" -> readProducts(reader, builder);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
 
-        if (product == null) {
-            NetworthCalculator.LOGGER.warn("No product by the ID of {} exists!", id);
-            return 0;
+        if (!success) {
+            NetworthCalculator.LOGGER.error("Bazaar data didn't return successfully!");
+            return null;
         }
 
-        JsonObject quickStatus = product.getAsJsonObject("quick_status");
-        return (quickStatus.get("sellPrice").getAsDouble() + quickStatus.get("buyPrice").getAsDouble()) / 2d;
+        return builder.build();
     }
 
-    private void doUpdate() {
-        try {
-            HTTPUtil.Response response = HTTPUtil.get("https://api.hypixel.net/v2/skyblock/bazaar");
-            JsonObject jsonResponse = JsonParser.parseString(response.response()).getAsJsonObject();
-
-            if (!jsonResponse.get("success").getAsBoolean()) {
-                NetworthCalculator.LOGGER.error("Bazaar data didn't return successfully!");
-                return;
+    private static void readProducts(@NonNull JsonReader reader, @NonNull BazaarSnapshot.Builder builder)
+            throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            double buyPrice = Double.NaN;
+            double sellPrice = Double.NaN;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!reader.nextName().equals("quick_status")) {
+                    reader.skipValue();
+                    continue;
+                }
+
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "buyPrice" -> buyPrice = reader.nextDouble();
+                        case "sellPrice" -> sellPrice = reader.nextDouble();
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
             }
+            reader.endObject();
 
-            jsonResponse.getAsJsonObject("products").entrySet().forEach(e ->
-                this.productMap.put(e.getKey(), e.getValue().getAsJsonObject()));
-
-            lastUpdateTime = System.currentTimeMillis();
-        } catch (Exception e) {
-            NetworthCalculator.LOGGER.error("Failed to fetch Bazaar data!", e);
+            if (!Double.isNaN(buyPrice) && !Double.isNaN(sellPrice)) {
+                builder.add(id, buyPrice, sellPrice);
+            }
         }
+        reader.endObject();
     }
 }
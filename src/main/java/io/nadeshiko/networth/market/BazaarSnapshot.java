@@ -0,0 +1,182 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.exception.NoSuchProductException;
+import lombok.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable table of the prices of every product on the Bazaar at the time of a single refresh
+ * <p>
+ * Prices are stored in flat arrays indexed by {@link ProductRegistry} ordinal, so reading a price is an array read with
+ * no allocation. Products that weren't on the Bazaar during the refresh have a price of {@link Double#NaN}.
+ */
+public class BazaarSnapshot {
+
+    /**
+     * A snapshot containing no products, used before the first refresh completes
+     */
+    public static final BazaarSnapshot EMPTY = new BazaarSnapshot(new double[0], new double[0]);
+
+    /**
+     * Prices indexed by product ordinal
+     */
+    private final double[] buyPrices;
+    private final double[] sellPrices;
+    private final double[] medianPrices;
+
+    /**
+     * The number of products in this snapshot
+     */
+    private final int size;
+
+    private BazaarSnapshot(double[] buyPrices, double[] sellPrices) {
+        this.buyPrices = buyPrices;
+        this.sellPrices = sellPrices;
+        this.medianPrices = new double[buyPrices.length];
+
+        int size = 0;
+        for (int i = 0; i < buyPrices.length; i++) {
+            this.medianPrices[i] = (sellPrices[i] + buyPrices[i]) / 2d;
+            if (!Double.isNaN(buyPrices[i])) {
+                size++;
+            }
+        }
+        this.size = size;
+    }
+
+    /**
+     * @return A new {@link Builder} for a snapshot
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean hasProduct(@NonNull String id) {
+        return this.hasProduct(ProductRegistry.find(id));
+    }
+
+    /**
+     * @param ordinal The {@link ProductRegistry} ordinal of the product
+     * @return Whether the product was on the Bazaar during this refresh
+     */
+    public boolean hasProduct(int ordinal) {
+        return ordinal >= 0 && ordinal < this.medianPrices.length && !Double.isNaN(this.medianPrices[ordinal]);
+    }
+
+    public double getMedianPrice(@NonNull String id) throws NoSuchProductException {
+        int ordinal = ProductRegistry.find(id);
+
+        if (!this.hasProduct(ordinal)) {
+            throw new NoSuchProductException("No product by the ID of " + id + " exists!");
+        }
+
+        return this.medianPrices[ordinal];
+    }
+
+    public double getMedianPriceUnsafe(@NonNull String id) {
+        int ordinal = ProductRegistry.find(id);
+
+        if (!this.hasProduct(ordinal)) {
+            NetworthCalculator.LOGGER.warn("No product by the ID of {} exists!", id);
+            return 0;
+        }
+
+        return this.medianPrices[ordinal];
+    }
+
+    /**
+     * @param ordinal The {@link ProductRegistry} ordinal of the product
+     * @return The average of the highest buy order and lowest sell offer of the product, or zero if it doesn't exist
+     */
+    public double getMedianPriceUnsafe(int ordinal) {
+        if (!this.hasProduct(ordinal)) {
+            NetworthCalculator.LOGGER.warn("No product by the ID of {} exists!", ProductRegistry.name(ordinal));
+            return 0;
+        }
+
+        return this.medianPrices[ordinal];
+    }
+
+    /**
+     * @param ordinal The {@link ProductRegistry} ordinal of the product
+     * @return The buy price of the product, or {@link Double#NaN} if it doesn't exist
+     */
+    public double getBuyPrice(int ordinal) {
+        return this.hasProduct(ordinal) ? this.buyPrices[ordinal] : Double.NaN;
+    }
+
+    /**
+     * @param ordinal The {@link ProductRegistry} ordinal of the product
+     * @return The sell price of the product, or {@link Double#NaN} if it doesn't exist
+     */
+    public double getSellPrice(int ordinal) {
+        return this.hasProduct(ordinal) ? this.sellPrices[ordinal] : Double.NaN;
+    }
+
+    /**
+     * @return The number of products in this snapshot
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Collects product prices during a refresh, then compiles them into a {@link BazaarSnapshot}
+     */
+    public static class Builder {
+        private double[] buyPrices = new double[0];
+        private double[] sellPrices = new double[0];
+
+        private Builder() {
+        }
+
+        /**
+         * Add a product to the snapshot
+         * @param id The product ID
+         * @param buyPrice The {@code quick_status} buy price of the product
+         * @param sellPrice The {@code quick_status} sell price of the product
+         * @return This builder
+         */
+        public Builder add(@NonNull String id, double buyPrice, double sellPrice) {
+            int ordinal = ProductRegistry.intern(id);
+
+            if (ordinal >= this.buyPrices.length) {
+                int length = Math.max(ordinal + 1, this.buyPrices.length * 2);
+                this.buyPrices = grow(this.buyPrices, length);
+                this.sellPrices = grow(this.sellPrices, length);
+            }
+
+            this.buyPrices[ordinal] = buyPrice;
+            this.sellPrices[ordinal] = sellPrice;
+            return this;
+        }
+
+        /**
+         * @return A new {@link BazaarSnapshot} of the added products
+         */
+        public BazaarSnapshot build() {
+            return new BazaarSnapshot(this.buyPrices.clone(), this.sellPrices.clone());
+        }
+
+        private static double[] grow(double[] prices, int length) {
+            double[] grown = Arrays.copyOf(prices, length);
+            Arrays.fill(grown, prices.length, length, Double.NaN);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.http.HttpConfig;
+import io.nadeshiko.networth.http.HttpTransport;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link MarketDataSource} reading live data from the Hypixel API, or any API serving the same endpoints
+ */
+public class HttpMarketDataSource implements MarketDataSource {
+
+    /**
+     * The base URL of the API
+     */
+    private final String apiUrl;
+
+    /**
+     * The transport requests are made through, reusing connections across pages and refreshes
+     */
+    private final HttpTransport transport;
+
+    /**
+     * Create a new HttpMarketDataSource reading from the given API with the default {@link HttpConfig}
+     * @param apiUrl The base URL of the API, without a trailing slash, i.e. https://api.hypixel.net/v2
+     */
+    public HttpMarketDataSource(@NonNull String apiUrl) {
+        this(apiUrl, new HttpTransport(HttpConfig.defaults()));
+    }
+
+    /**
+     * Create a new HttpMarketDataSource reading from the given API
+     * @param apiUrl The base URL of the API, without a trailing slash, i.e. https://api.hypixel.net/v2
+     * @param transport The {@link HttpTransport} to make requests through
+     */
+    public HttpMarketDataSource(@NonNull String apiUrl, @NonNull HttpTransport transport) {
+        this.apiUrl = apiUrl;
+        this.transport = transport;
+    }
+
+    @Override
+    public InputStream openBazaar() throws IOException {
+        return this.open("/skyblock/bazaar");
+    }
+
+    @Override
+    public InputStream openAuctionPage(int page) throws IOException {
+        return this.open("/skyblock/auctions?page=" + page);
+    }
+
+    @Override
+    public InputStream openEndedAuctions() throws IOException {
+        return this.open("/skyblock/auctions_ended");
+    }
+
+    /**
+     * Open the response body of an endpoint. Error responses are returned too, as the API explains them in the body.
+     * @param endpoint The endpoint to request, including any query
+     * @return The response body
+     * @throws IOException If the request failed
+     */
+    private InputStream open(@NonNull String endpoint) throws IOException {
+        return this.transport.get(this.apiUrl + endpoint, null).body();
+    }
+}
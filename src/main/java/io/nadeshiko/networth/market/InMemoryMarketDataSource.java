@@ -0,0 +1,103 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * A {@link MarketDataSource} serving responses held in memory, for tests and offline use
+ * <p>
+ * Responses can be replaced at any time; the next refresh picks them up. A response that was never set fails to open,
+ * just like an unreachable API would.
+ */
+public class InMemoryMarketDataSource implements MarketDataSource {
+
+    private volatile byte[] bazaar;
+    private volatile List<byte[]> auctionPages = List.of();
+    private volatile byte[] endedAuctions;
+
+    /**
+     * @param bazaar The {@code /skyblock/bazaar} response to serve
+     * @return This source
+     */
+    public InMemoryMarketDataSource setBazaar(@NonNull byte[] bazaar) {
+        this.bazaar = bazaar;
+        return this;
+    }
+
+    /**
+     * @param auctionPages The {@code /skyblock/auctions} responses to serve, in page order
+     * @return This source
+     */
+    public InMemoryMarketDataSource setAuctionPages(@NonNull List<byte[]> auctionPages) {
+        this.auctionPages = List.copyOf(auctionPages);
+        return this;
+    }
+
+    /**
+     * @param endedAuctions The {@code /skyblock/auctions_ended} response to serve
+     * @return This source
+     */
+    public InMemoryMarketDataSource setEndedAuctions(@NonNull byte[] endedAuctions) {
+        this.endedAuctions = endedAuctions;
+        return this;
+    }
+
+    /**
+     * Serve a market with no Bazaar products and no auctions
+     * @return This source
+     */
+    public InMemoryMarketDataSource setEmpty() {
+        return this
+            .setBazaar(json("{\"success\":true,\"lastUpdated\":0,\"products\":{}}"))
+            .setAuctionPages(List.of(json("{\"success\":true,\"page\":0,\"totalPages\":1,\"totalAuctions\":0," +
+                "\"lastUpdated\":0,\"auctions\":[]}")))
+            .setEndedAuctions(json("{\"success\":true,\"lastUpdated\":0,\"auctions\":[]}"));
+    }
+
+    @Override
+    public InputStream openBazaar() throws IOException {
+        return open(this.bazaar, "Bazaar");
+    }
+
+    @Override
+    public InputStream openAuctionPage(int page) throws IOException {
+        List<byte[]> auctionPages = this.auctionPages;
+        return open(page >= 0 && page < auctionPages.size() ? auctionPages.get(page) : null, "AH page " + page);
+    }
+
+    @Override
+    public InputStream openEndedAuctions() throws IOException {
+        return open(this.endedAuctions, "ended AH");
+    }
+
+    private static InputStream open(byte[] response, @NonNull String name) throws IOException {
+        if (response == null) {
+            throw new FileNotFoundException("No " + name + " response was set!");
+        }
+
+        return new ByteArrayInputStream(response);
+    }
+
+    private static byte[] json(@NonNull String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.http.HttpConfig;
+import io.nadeshiko.networth.http.HttpTransport;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration of where market data is fetched from and how often it is refreshed
+ * <p>
+ * Create instances with {@link MarketConfig#builder()}; every option has a sensible default.
+ */
+@Getter
+@Builder
+public class MarketConfig {
+
+    /**
+     * The base URL of the API, without a trailing slash
+     */
+    @Builder.Default
+    private final String apiUrl = MarketManager.HYPIXEL_API_URL;
+
+    /**
+     * Where market data is read from. If not set, live data is read from {@link MarketConfig#getApiUrl()}.
+     */
+    private final MarketDataSource dataSource;
+
+    /**
+     * How live data is requested from {@link MarketConfig#getApiUrl()}, if no data source is set
+     */
+    @Builder.Default
+    private final HttpConfig http = HttpConfig.defaults();
+
+    /**
+     * The maximum number of Auction House pages to fetch at once
+     */
+    @Builder.Default
+    private final int pageConcurrency = AuctionHandler.DEFAULT_PAGE_CONCURRENCY;
+
+    /**
+     * Whether to keep the Auction House current between full refreshes by applying only new and ended auctions
+     */
+    @Builder.Default
+    private final boolean incrementalAuctions = true;
+
+    /**
+     * How often the Bazaar is refreshed
+     */
+    @Builder.Default
+    private final RefreshPolicy bazaarRefresh = RefreshPolicy.every(Duration.ofMinutes(15));
+
+    /**
+     * How often the Auction House book is fully rebuilt
+     */
+    @Builder.Default
+    private final RefreshPolicy auctionRefresh = RefreshPolicy.every(Duration.ofHours(1));
+
+    /**
+     * How often new and ended auctions are applied to the Auction House book, if incremental updates are enabled
+     */
+    @Builder.Default
+    private final RefreshPolicy incrementalAuctionRefresh = RefreshPolicy.every(Duration.ofMinutes(1));
+
+    /**
+     * A file to persist market data to, so that a restart serves the last saved prices while the first refresh runs.
+     * If not set, market data is never persisted.
+     */
+    private final Path snapshotFile;
+
+    /**
+     * How often market data is saved to the snapshot file, if one is set. Unchanged data is never saved twice.
+     */
+    @Builder.Default
+    private final RefreshPolicy snapshotSave = RefreshPolicy.every(Duration.ofMinutes(10));
+
+    /**
+     * @return The configured {@link MarketDataSource}, or a live source reading from the configured API
+     */
+    public MarketDataSource resolveDataSource() {
+        return this.dataSource != null ? this.dataSource :
+            new HttpMarketDataSource(this.apiUrl, new HttpTransport(this.http));
+    }
+
+    /**
+     * @return A configuration with every option at its default
+     */
+    public static MarketConfig defaults() {
+        return MarketConfig.builder().build();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Where raw market data is read from
+ * <p>
+ * Every method opens one API response body in the format of the matching Hypixel API endpoint. Callers are
+ * responsible for closing the returned stream. Implementations must be safe to call from several threads at once, as
+ * Auction House pages are read concurrently.
+ * @see HttpMarketDataSource
+ * @see RecordedMarketDataSource
+ * @see InMemoryMarketDataSource
+ */
+public interface MarketDataSource {
+
+    /**
+     * @return A {@code /skyblock/bazaar} response
+     * @throws IOException If the response couldn't be opened
+     */
+    InputStream openBazaar() throws IOException;
+
+    /**
+     * @param page The page number, starting at 0
+     * @return A {@code /skyblock/auctions} response for the given page
+     * @throws IOException If the response couldn't be opened
+     */
+    InputStream openAuctionPage(int page) throws IOException;
+
+    /**
+     * @return A {@code /skyblock/auctions_ended} response
+     * @throws IOException If the response couldn't be opened
+     */
+    InputStream openEndedAuctions() throws IOException;
+
+    /**
+     * @param apiUrl The base URL of the API, without a trailing slash, i.e. https://api.hypixel.net/v2
+     * @return A source reading live data from the given API
+     */
+    static MarketDataSource http(@NonNull String apiUrl) {
+        return new HttpMarketDataSource(apiUrl);
+    }
+
+    /**
+     * @param directory The directory containing the recorded responses
+     * @return A source replaying responses recorded to the given directory
+     */
+    static MarketDataSource recorded(@NonNull Path directory) {
+        return new RecordedMarketDataSource(directory);
+    }
+}
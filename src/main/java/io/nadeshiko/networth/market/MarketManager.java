@@ -0,0 +1,261 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Owns the market handlers and publishes their data as immutable {@link MarketSnapshot}s
+ * <p>
+ * Reads never lock or block: {@link MarketManager#getSnapshot()} is a single atomic read, and all refreshes run in the
+ * background on a {@link MarketScheduler}. Auction House refreshes are single-flight, so an incremental update never
+ * overlaps a full rebuild.
+ * <p>
+ * Construction never waits for market data either. The initial load starts in the background right away; until it
+ * completes, calculations price against an empty market. Use {@link MarketManager#isReady()} or
+ * {@link MarketManager#awaitReady(Duration)} to find out when both markets have loaded.
+ */
+public class MarketManager {
+
+    /**
+     * The default base URL of the Hypixel API
+     */
+    public static final String HYPIXEL_API_URL = "https://api.hypixel.net/v2";
+
+    /**
+     * Market handlers
+     */
+    @Getter
+    private final BazaarHandler bazaarHandler;
+    @Getter
+    private final AuctionHandler auctionHandler;
+
+    /**
+     * Scheduler owning the refresh cadence of both markets
+     */
+    private final MarketScheduler scheduler = new MarketScheduler();
+
+    /**
+     * The latest published market snapshot
+     */
+    private final AtomicReference<MarketSnapshot> snapshot = new AtomicReference<>(MarketSnapshot.EMPTY);
+
+    /**
+     * Held while an Auction House refresh is in flight. Incremental updates skip a turn when it's taken, while full
+     * rebuilds wait for it, so that a rebuild is never skipped for an hour.
+     */
+    private final ReentrantLock auctionsUpdating = new ReentrantLock();
+
+    /**
+     * Completed with the first snapshot in which both markets have loaded
+     */
+    private final CompletableFuture<MarketSnapshot> ready = new CompletableFuture<>();
+
+    /**
+     * Persists snapshots across restarts, or {@code null} if persistence is disabled
+     */
+    private final MarketSnapshotStore store;
+
+    /**
+     * The last snapshot saved to the store
+     */
+    private MarketSnapshot lastSaved;
+
+    public MarketManager() {
+        this(MarketConfig.defaults());
+    }
+
+    /**
+     * Create a new MarketManager and start loading and refreshing market data in the background
+     * @param config The {@link MarketConfig} to use
+     */
+    public MarketManager(@NonNull MarketConfig config) {
+        MarketDataSource source = config.resolveDataSource();
+
+        this.bazaarHandler = new BazaarHandler(source);
+        this.auctionHandler = new AuctionHandler(source, config.getPageConcurrency());
+        this.store = config.getSnapshotFile() != null ? new MarketSnapshotStore(config.getSnapshotFile()) : null;
+
+        // serve the last saved data right away, while the first refresh catches up
+        if (this.store != null) {
+            this.restoreSnapshot();
+            this.scheduler.schedule("Snapshot save", config.getSnapshotSave(), this::saveSnapshot,
+                config.getSnapshotSave().nextDelayMillis());
+        }
+
+        // the initial load is just the first run of each refresh, so a failed load backs off and retries like any other
+        this.scheduler.schedule("Bazaar", config.getBazaarRefresh(), this::updateBazaar, 0);
+        this.scheduler.schedule("Auction House", config.getAuctionRefresh(), () -> this.updateAuctions(true), 0);
+
+        if (config.isIncrementalAuctions()) {
+            this.scheduler.schedule("Incremental Auction House", config.getIncrementalAuctionRefresh(),
+                () -> this.updateAuctions(false), config.getIncrementalAuctionRefresh().nextDelayMillis());
+        }
+    }
+
+    /**
+     * Get the latest market snapshot. This never blocks, even while a refresh is running.
+     * @return The latest {@link MarketSnapshot}
+     */
+    public MarketSnapshot getSnapshot() {
+        return this.snapshot.get();
+    }
+
+    /**
+     * @return Whether both markets have loaded at least once
+     */
+    public boolean isReady() {
+        return this.ready.isDone();
+    }
+
+    /**
+     * Wait until both markets have loaded at least once
+     * @param timeout The maximum time to wait
+     * @return Whether the markets loaded within the timeout
+     * @throws InterruptedException If the calling thread was interrupted while waiting
+     */
+    public boolean awaitReady(@NonNull Duration timeout) throws InterruptedException {
+        try {
+            this.ready.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e); // never completed exceptionally
+        }
+    }
+
+    /**
+     * @return A stage completed with the first snapshot in which both markets have loaded
+     */
+    public CompletionStage<MarketSnapshot> whenReady() {
+        return this.ready.minimalCompletionStage();
+    }
+
+    /**
+     * Stop refreshing market data in the background and release the threads doing it, saving the latest snapshot if
+     * persistence is enabled. The last published snapshot stays available.
+     */
+    public void shutdown() {
+        this.scheduler.shutdown();
+        this.auctionHandler.shutdown();
+
+        if (this.store != null) {
+            this.saveSnapshot();
+        }
+    }
+
+    /**
+     * Refresh the Bazaar on the calling thread
+     * @return Whether the refresh succeeded
+     */
+    private boolean updateBazaar() {
+        BazaarSnapshot bazaar = this.bazaarHandler.doUpdate();
+
+        if (bazaar == null) {
+            return false; // keep serving the last good data
+        }
+
+        this.signalReady(this.snapshot.updateAndGet(current -> current.withBazaar(bazaar)));
+        return true;
+    }
+
+    /**
+     * Refresh the Auction House on the calling thread. Full rebuilds wait for a refresh already in flight, while
+     * incremental updates are skipped.
+     * @param full Whether to rebuild the whole book rather than apply an incremental update
+     * @return Whether the refresh succeeded or was skipped. Incremental updates that found nothing new also succeed.
+     */
+    private boolean updateAuctions(boolean full) {
+        if (full) {
+            this.auctionsUpdating.lock();
+        } else if (!this.auctionsUpdating.tryLock()) {
+            return true; // another refresh is already running, and will publish newer data anyway
+        }
+
+        try {
+            AuctionIndex auctions = full ? this.auctionHandler.doUpdate() : this.auctionHandler.doIncrementalUpdate();
+
+            if (auctions != null) {
+                MarketSnapshot published = this.snapshot.updateAndGet(current -> current.withAuctions(auctions));
+
+                // incremental updates only ever follow a full book, which is what readiness waits for
+                if (full) {
+                    this.signalReady(published);
+                }
+            }
+
+            return auctions != null || !full;
+        } finally {
+            this.auctionsUpdating.unlock();
+        }
+    }
+
+    /**
+     * Publish the snapshot saved by a previous run, if there is one
+     */
+    private void restoreSnapshot() {
+        MarketSnapshot restored = this.store.load();
+
+        if (restored == null) {
+            return;
+        }
+
+        this.auctionHandler.restore(restored.auctions());
+        this.snapshot.set(restored);
+        this.lastSaved = restored;
+        this.signalReady(restored);
+    }
+
+    /**
+     * Save the latest snapshot, unless it was already saved or hasn't fully loaded yet
+     * @return Whether the snapshot was saved or didn't need saving
+     */
+    private synchronized boolean saveSnapshot() {
+        MarketSnapshot current = this.snapshot.get();
+
+        if (current == this.lastSaved || !current.isLoaded()) {
+            return true;
+        }
+
+        if (!this.store.save(current)) {
+            return false;
+        }
+
+        this.lastSaved = current;
+        return true;
+    }
+
+    /**
+     * Signal readiness once a published snapshot contains both markets
+     * @param published The snapshot that was just published
+     */
+    private void signalReady(@NonNull MarketSnapshot published) {
+        if (published.isLoaded() && this.ready.complete(published)) {
+            NetworthCalculator.LOGGER.info("Market data loaded: {} Bazaar products, {} auctions",
+                published.bazaar().size(), published.auctions().size());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.util.ThreadUtil;
+import lombok.NonNull;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs market refreshes in the background at the cadence of their {@link RefreshPolicy}, backing off on failure
+ * <p>
+ * Refreshes never run on request threads. While a refresh is running or failing, the last good data keeps being
+ * served.
+ */
+public class MarketScheduler {
+
+    /**
+     * Executor running the refreshes. Two threads, so a long Auction House crawl never delays a Bazaar refresh.
+     */
+    private final ScheduledExecutorService executor =
+        Executors.newScheduledThreadPool(2, ThreadUtil.daemonFactory("Market-Refresh"));
+
+    /**
+     * Schedule a recurring refresh
+     * @param name A friendly name of the refresh, used in logging
+     * @param policy The {@link RefreshPolicy} of the refresh
+     * @param task The refresh itself, returning {@code true} if it succeeded
+     * @param initialDelayMillis The delay before the first run, in milliseconds
+     */
+    public void schedule(@NonNull String name, @NonNull RefreshPolicy policy, @NonNull BooleanSupplier task,
+                         long initialDelayMillis) {
+        this.executor.schedule(new RefreshTask(name, policy, task), initialDelayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop all scheduled refreshes
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private class RefreshTask implements Runnable {
+        private final String name;
+        private final RefreshPolicy policy;
+        private final BooleanSupplier task;
+        private int failures = 0;
+
+        private RefreshTask(String name, RefreshPolicy policy, BooleanSupplier task) {
+            this.name = name;
+            this.policy = policy;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            boolean succeeded;
+
+            try {
+                succeeded = this.task.getAsBoolean();
+            } catch (Exception e) {
+                NetworthCalculator.LOGGER.error("Unexpected error during {} refresh!", this.name, e);
+                succeeded = false;
+            }
+
+            long delay;
+            if (succeeded) {
+                this.failures = 0;
+                delay = this.policy.nextDelayMillis();
+            } else {
+                this.failures++;
+                delay = this.policy.backoffMillis(this.failures);
+                NetworthCalculator.LOGGER.warn("{} refresh failed {} time(s) in a row, retrying in {}ms",
+                    this.name, this.failures, delay);
+            }
+
+            if (!executor.isShutdown()) {
+                executor.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
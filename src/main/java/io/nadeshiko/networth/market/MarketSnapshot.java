@@ -0,0 +1,56 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import lombok.NonNull;
+
+/**
+ * An immutable, consistent view of both markets at a point in time
+ * <p>
+ * Every calculation prices against a single snapshot, so a refresh landing halfway through a calculation never mixes
+ * old and new prices.
+ * @param version A counter incremented every time either market is refreshed
+ * @param bazaar The Bazaar products of this snapshot
+ * @param auctions The Auction House listings of this snapshot
+ */
+public record MarketSnapshot(long version, @NonNull BazaarSnapshot bazaar, @NonNull AuctionIndex auctions) {
+
+    /**
+     * A snapshot containing no market data, used before the first refresh completes
+     */
+    public static final MarketSnapshot EMPTY = new MarketSnapshot(0, BazaarSnapshot.EMPTY, AuctionIndex.EMPTY);
+
+    /**
+     * @return Whether both markets have been loaded at least once
+     */
+    public boolean isLoaded() {
+        return this.bazaar != BazaarSnapshot.EMPTY && this.auctions != AuctionIndex.EMPTY;
+    }
+
+    /**
+     * @param bazaar The new Bazaar products
+     * @return A copy of this snapshot with the provided Bazaar products
+     */
+    public MarketSnapshot withBazaar(@NonNull BazaarSnapshot bazaar) {
+        return new MarketSnapshot(this.version + 1, bazaar, this.auctions);
+    }
+
+    /**
+     * @param auctions The new Auction House listings
+     * @return A copy of this snapshot with the provided Auction House listings
+     */
+    public MarketSnapshot withAuctions(@NonNull AuctionIndex auctions) {
+        return new MarketSnapshot(this.version + 1, this.bazaar, auctions);
+    }
+}
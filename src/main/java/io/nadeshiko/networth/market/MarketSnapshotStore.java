@@ -0,0 +1,384 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.NetworthCalculator;
+import io.nadeshiko.networth.item.Gemstone;
+import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.item.ItemFeatures;
+import lombok.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists decoded market data to a compact binary file, so that a restart can serve prices immediately instead of
+ * waiting for a full Auction House crawl
+ * <p>
+ * Items are stored already decoded, never as raw {@code item_bytes}. Every string is written once to a string table
+ * and referenced by index, so repeated item IDs, reforges and enchantment names cost four bytes each. Files are
+ * replaced atomically, so a crash while saving never leaves a truncated snapshot behind.
+ */
+public class MarketSnapshotStore {
+
+    /**
+     * Identifies a snapshot file, "NWMS"
+     */
+    private static final int MAGIC = 0x4E574D53;
+
+    /**
+     * The version of the file format. Files of any other version are ignored.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * The index written in place of a {@code null} string
+     */
+    private static final int NULL_STRING = -1;
+
+    /**
+     * The index standing for a string too long to write, whose length doesn't fit the unsigned short it's written as.
+     * Never written to a file.
+     */
+    private static final int TOO_LONG = -2;
+    private static final int MAX_STRING_BYTES = 0xFFFF;
+
+    /**
+     * The file snapshots are saved to and loaded from
+     */
+    private final Path file;
+
+    /**
+     * Create a new MarketSnapshotStore
+     * @param file The file to save snapshots to and load them from
+     */
+    public MarketSnapshotStore(@NonNull Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Save a snapshot, replacing any previously saved one
+     * @param snapshot The {@link MarketSnapshot} to save
+     * @return Whether the snapshot was saved
+     */
+    public boolean save(@NonNull MarketSnapshot snapshot) {
+        try {
+            Path parent = this.file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporary = Files.createTempFile(parent, this.file.getFileName().toString(), ".tmp");
+
+            try {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary), 64 * 1024)) {
+                    write(snapshot, out);
+                }
+                Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            return true;
+        } catch (Exception e) {
+            NetworthCalculator.LOGGER.error("Failed to save market snapshot to {}!", this.file, e);
+            return false;
+        }
+    }
+
+    /**
+     * Load the saved snapshot
+     * @return The saved {@link MarketSnapshot}, or {@code null} if there is none or it couldn't be read
+     */
+    public MarketSnapshot load() {
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (NoSuchFileException e) {
+            return null; // nothing saved yet
+        } catch (Exception e) {
+            NetworthCalculator.LOGGER.error("Failed to load market snapshot from {}!", this.file, e);
+            return null;
+        }
+    }
+
+    // ================================
+    //  WRITING
+    // ================================
+
+    private static void write(@NonNull MarketSnapshot snapshot, @NonNull OutputStream out) throws IOException {
+        StringTable strings = new StringTable();
+
+        // the sections are written first, as they fill the string table that precedes them in the file
+        ByteArrayOutputStream bazaarBytes = new ByteArrayOutputStream(64 * 1024);
+        int products = writeBazaar(snapshot.bazaar(), new DataOutputStream(bazaarBytes), strings);
+
+        ByteArrayOutputStream auctionBytes = new ByteArrayOutputStream(1024 * 1024);
+        int auctions = writeAuctions(snapshot.auctions(), new DataOutputStream(auctionBytes), strings);
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(FORMAT_VERSION);
+        data.writeLong(System.currentTimeMillis());
+
+        data.writeInt(strings.encoded.size());
+        for (byte[] bytes : strings.encoded) {
+            data.writeShort(bytes.length);
+            data.write(bytes);
+        }
+
+        data.writeInt(products);
+        bazaarBytes.writeTo(data);
+        data.writeInt(auctions);
+        auctionBytes.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Write every product of the Bazaar, skipping products whose name is too long for the string table
+     * @return The number of products written
+     */
+    private static int writeBazaar(@NonNull BazaarSnapshot bazaar, @NonNull DataOutputStream out,
+                                   @NonNull StringTable strings) throws IOException {
+        int written = 0;
+
+        for (int ordinal = 0; ordinal < ProductRegistry.size(); ordinal++) {
+            if (!bazaar.hasProduct(ordinal)) {
+                continue;
+            }
+
+            int name = strings.ref(ProductRegistry.name(ordinal));
+            if (name == TOO_LONG) {
+                continue;
+            }
+
+            out.writeInt(name);
+            out.writeDouble(bazaar.getBuyPrice(ordinal));
+            out.writeDouble(bazaar.getSellPrice(ordinal));
+            written++;
+        }
+
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Write every row of the Auction House straight from its columns, skipping rows with a string too long for the
+     * string table
+     * @return The number of auctions written
+     */
+    private static int writeAuctions(@NonNull AuctionIndex auctions, @NonNull DataOutputStream out,
+                                     @NonNull StringTable strings) throws IOException {
+        AuctionIndex.Row item = auctions.features();
+        int[] enchantments = new int[16];
+        int[] slots = new int[16];
+        int written = 0;
+
+        for (int row = 0; row < auctions.size(); row++) {
+            item.moveTo(row);
+
+            // resolve every string of the row before writing it, so that a skipped row leaves nothing behind
+            int uuid = strings.ref(auctions.uuid(row));
+            int id = strings.ref(auctions.itemId(row));
+            int reforge = strings.ref(item.getReforge() < 0 ? null : Item.IDS.name(item.getReforge()));
+            int dye = strings.ref(item.getDye() < 0 ? null : Item.IDS.name(item.getDye()));
+            boolean skip = uuid == TOO_LONG || id == TOO_LONG || reforge == TOO_LONG || dye == TOO_LONG;
+
+            if (enchantments.length < item.getEnchantmentCount()) {
+                enchantments = new int[item.getEnchantmentCount()];
+            }
+            for (int i = 0; i < item.getEnchantmentCount(); i++) {
+                enchantments[i] = strings.ref(Item.NAMES.name(item.getEnchantmentOrdinal(i)));
+                skip |= enchantments[i] == TOO_LONG;
+            }
+
+            if (slots.length < item.getUnlockedGemstoneSlotCount()) {
+                slots = new int[item.getUnlockedGemstoneSlotCount()];
+            }
+            for (int i = 0; i < item.getUnlockedGemstoneSlotCount(); i++) {
+                slots[i] = strings.ref(Item.NAMES.name(item.getUnlockedGemstoneSlotOrdinal(i)));
+                skip |= slots[i] == TOO_LONG;
+            }
+
+            if (skip) {
+                continue;
+            }
+
+            out.writeInt(uuid);
+            out.writeDouble(auctions.price(row));
+            out.writeLong(auctions.end(row));
+
+            out.writeInt(id);
+            out.writeInt(auctions.count(row));
+            out.writeByte(item.getHotPotatoBooks());
+            out.writeByte(item.getFumingPotatoBooks());
+            out.writeByte(item.getUpgradeLevel());
+            out.writeByte(item.getFlags());
+            out.writeInt(reforge);
+            out.writeInt(dye);
+
+            out.writeShort(item.getEnchantmentCount());
+            for (int i = 0; i < item.getEnchantmentCount(); i++) {
+                out.writeInt(enchantments[i]);
+                out.writeShort(item.getEnchantmentLevel(i));
+            }
+
+            // packed gemstones hold the type and quality ordinals plus one, zero standing for an unknown one
+            out.writeShort(item.getGemstoneCount());
+            for (int i = 0; i < item.getGemstoneCount(); i++) {
+                int packed = item.getPackedGemstone(i);
+                out.writeByte((packed >>> 4) - 1);
+                out.writeByte((packed & 0xF) - 1);
+            }
+
+            out.writeShort(item.getUnlockedGemstoneSlotCount());
+            for (int i = 0; i < item.getUnlockedGemstoneSlotCount(); i++) {
+                out.writeInt(slots[i]);
+            }
+
+            written++;
+        }
+
+        if (written < auctions.size()) {
+            NetworthCalculator.LOGGER.warn("Skipped {} auctions with strings too long to save",
+                auctions.size() - written);
+        }
+
+        out.flush();
+        return written;
+    }
+
+    /**
+     * The strings of a file, each written once as UTF-8 and referenced by index
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+
+        /**
+         * Get the index of a string, adding it to the table if it isn't in it yet
+         * @return The index, {@link MarketSnapshotStore#NULL_STRING} for {@code null}, or
+         * {@link MarketSnapshotStore#TOO_LONG} if the string is too long to be written
+         */
+        private int ref(String string) {
+            if (string == null) {
+                return NULL_STRING;
+            }
+
+            return this.indexes.computeIfAbsent(string, added -> {
+                byte[] bytes = added.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > MAX_STRING_BYTES) {
+                    return TOO_LONG; // remembered, so that it is only encoded once
+                }
+
+                this.encoded.add(bytes);
+                return this.encoded.size() - 1;
+            });
+        }
+    }
+
+    // ================================
+    //  READING
+    // ================================
+
+    private static MarketSnapshot read(@NonNull ByteBuffer in) throws IOException {
+        if (in.remaining() < 16 || in.getInt() != MAGIC) {
+            throw new IOException("Not a market snapshot file");
+        }
+
+        int version = in.getInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported market snapshot format version " + version);
+        }
+
+        long savedAt = in.getLong();
+
+        String[] strings = new String[in.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[in.getShort() & 0xFFFF];
+            in.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        BazaarSnapshot.Builder builder = BazaarSnapshot.builder();
+        for (int i = in.getInt(); i > 0; i--) {
+            builder.add(strings[in.getInt()], in.getDouble(), in.getDouble());
+        }
+        BazaarSnapshot bazaar = builder.build();
+
+        int auctionCount = in.getInt();
+        List<AuctionHandler.Auction> auctions = new ArrayList<>(auctionCount);
+        for (int i = 0; i < auctionCount; i++) {
+            String uuid = strings[in.getInt()];
+            double price = in.getDouble();
+            long end = in.getLong();
+            auctions.add(new AuctionHandler.Auction(uuid, readItem(in, strings), price, end));
+        }
+
+        NetworthCalculator.LOGGER.info("Loaded market snapshot saved {}s ago: {} Bazaar products, {} auctions",
+            (System.currentTimeMillis() - savedAt) / 1000, bazaar.size(), auctionCount);
+
+        return MarketSnapshot.EMPTY.withBazaar(bazaar).withAuctions(new AuctionIndex(auctions));
+    }
+
+    private static Item readItem(@NonNull ByteBuffer in, @NonNull String[] strings) {
+        String id = string(in.getInt(), strings);
+        int count = in.getInt();
+        int hotPotatoBooks = in.get() & 0xFF;
+        int fumingPotatoBooks = in.get() & 0xFF;
+        int upgradeLevel = in.get() & 0xFF;
+        int flags = in.get() & 0xFF;
+        String reforge = string(in.getInt(), strings);
+        String dye = string(in.getInt(), strings);
+
+        Item item = new Item(count, id, hotPotatoBooks, fumingPotatoBooks, (flags & ItemFeatures.ART_OF_WAR) != 0,
+            (flags & ItemFeatures.ART_OF_PEACE) != 0, (flags & ItemFeatures.RECOMBOBULATED) != 0,
+            (flags & ItemFeatures.ENRICHED) != 0, reforge, dye, (flags & ItemFeatures.DUNGEONIZED) != 0, upgradeLevel);
+
+        for (int i = in.getShort() & 0xFFFF; i > 0; i--) {
+            item.putEnchantment(strings[in.getInt()], in.getShort());
+        }
+
+        Gemstone.Type[] types = Gemstone.Type.values();
+        Gemstone.Quality[] qualities = Gemstone.Quality.values();
+        for (int i = in.getShort() & 0xFFFF; i > 0; i--) {
+            int type = in.get();
+            int quality = in.get();
+            item.addGemstone(Gemstone.of(type < 0 ? null : types[type], quality < 0 ? null : qualities[quality]));
+        }
+
+        for (int i = in.getShort() & 0xFFFF; i > 0; i--) {
+            item.addUnlockedGemstoneSlot(strings[in.getInt()]);
+        }
+
+        return item;
+    }
+
+    private static String string(int index, @NonNull String[] strings) {
+        return index == NULL_STRING ? null : strings[index];
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.util.Interner;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Interns Bazaar product IDs to stable int ordinals, so prices can be stored and read as plain arrays
+ * <p>
+ * Ordinals are never reused or reassigned, so an ordinal resolved once, i.e. into a constant, stays valid across every
+ * Bazaar refresh.
+ */
+@UtilityClass
+public class ProductRegistry {
+
+    /**
+     * The interned product IDs
+     */
+    private final Interner PRODUCTS = new Interner();
+
+    /**
+     * Get the ordinal of a product ID, assigning a new one if the ID hasn't been seen before
+     * <p>
+     * Only intern IDs from trusted sources, like the Bazaar itself or constants. Use {@link ProductRegistry#find}
+     * for IDs coming from profile data.
+     * @param id The product ID
+     * @return The ordinal of the product ID
+     */
+    public int intern(@NonNull String id) {
+        return PRODUCTS.intern(id);
+    }
+
+    /**
+     * Get the ordinal of a product ID without interning it
+     * @param id The product ID
+     * @return The ordinal of the product ID, or -1 if the ID has never been interned
+     */
+    public int find(@NonNull String id) {
+        return PRODUCTS.find(id);
+    }
+
+    /**
+     * @param ordinal An ordinal returned by {@link ProductRegistry#intern}
+     * @return The product ID of the ordinal
+     */
+    public String name(int ordinal) {
+        return PRODUCTS.name(ordinal);
+    }
+
+    /**
+     * @return The number of interned product IDs. Every ordinal is below this.
+     */
+    public int size() {
+        return PRODUCTS.size();
+    }
+}
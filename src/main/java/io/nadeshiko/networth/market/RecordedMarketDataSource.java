@@ -0,0 +1,117 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import lombok.NonNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link MarketDataSource} replaying responses recorded to a directory
+ * <p>
+ * The directory holds one file per response: {@code bazaar.json}, {@code auctions_0.json}, {@code auctions_1.json},
+ * ... and {@code auctions_ended.json}. Each file may also be gzipped, with a {@code .gz} suffix. Directories in this
+ * layout are written by {@link RecordedMarketDataSource#record(MarketDataSource, Path)}.
+ */
+public class RecordedMarketDataSource implements MarketDataSource {
+
+    /**
+     * The directory containing the recorded responses
+     */
+    private final Path directory;
+
+    /**
+     * Create a new RecordedMarketDataSource replaying from the given directory
+     * @param directory The directory containing the recorded responses
+     */
+    public RecordedMarketDataSource(@NonNull Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public InputStream openBazaar() throws IOException {
+        return this.open("bazaar");
+    }
+
+    @Override
+    public InputStream openAuctionPage(int page) throws IOException {
+        return this.open("auctions_" + page);
+    }
+
+    @Override
+    public InputStream openEndedAuctions() throws IOException {
+        return this.open("auctions_ended");
+    }
+
+    private InputStream open(@NonNull String name) throws IOException {
+        Path plain = this.directory.resolve(name + ".json");
+        if (Files.isRegularFile(plain)) {
+            return Files.newInputStream(plain);
+        }
+
+        Path gzipped = this.directory.resolve(name + ".json.gz");
+        if (Files.isRegularFile(gzipped)) {
+            return new GZIPInputStream(Files.newInputStream(gzipped), 64 * 1024);
+        }
+
+        throw new NoSuchFileException(plain.toString(), null, "No recorded response");
+    }
+
+    /**
+     * Record the current responses of a source to a directory, in the layout read by this class. Every Auction House
+     * page listed by the first page is recorded.
+     * @param source The {@link MarketDataSource} to record, usually a live {@link HttpMarketDataSource}
+     * @param directory The directory to record to, created if it doesn't exist
+     * @throws IOException If a response couldn't be read or written
+     */
+    public static void record(@NonNull MarketDataSource source, @NonNull Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        try (InputStream in = source.openBazaar()) {
+            write(in.readAllBytes(), directory.resolve("bazaar.json.gz"));
+        }
+
+        int totalPages = 1;
+        for (int page = 0; page < totalPages; page++) {
+            byte[] response;
+            try (InputStream in = source.openAuctionPage(page)) {
+                response = in.readAllBytes();
+            }
+
+            if (page == 0) {
+                totalPages = AuctionPage.read(new ByteArrayInputStream(response)).totalPages();
+            }
+
+            write(response, directory.resolve("auctions_" + page + ".json.gz"));
+        }
+
+        try (InputStream in = source.openEndedAuctions()) {
+            write(in.readAllBytes(), directory.resolve("auctions_ended.json.gz"));
+        }
+    }
+
+    private static void write(@NonNull byte[] response, @NonNull Path path) throws IOException {
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(path))) {
+            out.write(response);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The cadence at which a market is refreshed in the background
+ * @param interval The time between successful refreshes
+ * @param jitter The maximum random delay added to every refresh, so refreshes of many instances don't line up
+ * @param initialBackoff The delay before retrying after the first failed refresh, doubled on every further failure
+ * @param maxBackoff The maximum delay before retrying after a failed refresh
+ */
+public record RefreshPolicy(@NonNull Duration interval, @NonNull Duration jitter, @NonNull Duration initialBackoff,
+                            @NonNull Duration maxBackoff) {
+
+    /**
+     * Create a refresh policy with a jitter of a tenth of the interval, retrying failures after ten seconds at first
+     * and after at most the interval itself
+     * @param interval The time between successful refreshes
+     * @return A new {@link RefreshPolicy}
+     */
+    public static RefreshPolicy every(@NonNull Duration interval) {
+        return new RefreshPolicy(interval, interval.dividedBy(10), Duration.ofSeconds(10), interval);
+    }
+
+    /**
+     * @return The delay before the next refresh after a successful one, in milliseconds
+     */
+    public long nextDelayMillis() {
+        return this.interval.toMillis() + this.randomJitterMillis();
+    }
+
+    /**
+     * @param failures The number of consecutive failed refreshes, at least one
+     * @return The delay before retrying after the given number of failures, in milliseconds
+     */
+    public long backoffMillis(int failures) {
+        long backoff = this.initialBackoff.toMillis() << Math.min(failures - 1, 20);
+        return Math.min(backoff, this.maxBackoff.toMillis()) + this.randomJitterMillis();
+    }
+
+    private long randomJitterMillis() {
+        return this.jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(this.jitter.toMillis() + 1);
+    }
+}
@@ -22,6 +22,12 @@ import java.net.URI;
 import java.net.URL;
 import java.util.Map;
 
+/**
+ * Blocking HTTP helpers opening a new connection per request
+ * @deprecated Use {@link io.nadeshiko.networth.http.HttpTransport}, which reuses connections, requests compressed
+ * responses, retries transient failures and supports asynchronous requests
+ */
+@Deprecated
 @UtilityClass
 public class HTTPUtil {
 
@@ -104,6 +110,36 @@ public class HTTPUtil {
         return new RawResponse(status, data);
     }
 
+    /**
+     * Launch a GET request to a given URL, without reading the response
+     *
+     * @param urlString The URL to request.
+     * @return A {@link StreamResponse} representing the response of the request, which must be closed after reading
+     * @throws IOException If the request failed for some reason
+     */
+    public StreamResponse getStream(@NonNull String urlString) throws Exception {
+        return getStream(urlString, null);
+    }
+
+    /**
+     * Launch a GET request to a given URL with the provided headers, without reading the response
+     *
+     * @param urlString The URL to request.
+     * @param headers A {@code Map<String, String>} of headers - key and value - to include in the request
+     * @return A {@link StreamResponse} representing the response of the request, which must be closed after reading
+     * @throws IOException If the request failed for some reason
+     */
+    public StreamResponse getStream(@NonNull String urlString, Map<String, String> headers) throws Exception {
+
+        HttpURLConnection connection = buildConnection(urlString, headers);
+
+        // Read the status of the response and pick the appropriate stream to read from
+        int status = connection.getResponseCode();
+        InputStream inputStream = status > 299 ? connection.getErrorStream() : connection.getInputStream();
+
+        return new StreamResponse(status, new BufferedInputStream(inputStream));
+    }
+
     private static HttpURLConnection buildConnection(String urlString, Map<String, String> headers) throws Exception {
         URL url = new URI(urlString).toURL();
         HttpURLConnection connection = (HttpURLConnection) url.openConnection();
@@ -135,4 +171,16 @@ public class HTTPUtil {
      */
     public record RawResponse(int status, byte[] response) {
     }
+
+    /**
+     * Record representation of a streamed request response. Closing it closes the underlying stream.
+     * @param status The status code returned
+     * @param response The stream of data returned
+     */
+    public record StreamResponse(int status, InputStream response) implements Closeable {
+        @Override
+        public void close() throws IOException {
+            this.response.close();
+        }
+    }
 }
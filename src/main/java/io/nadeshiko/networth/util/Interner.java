@@ -0,0 +1,90 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.util;
+
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns strings to stable, dense int ordinals, so they can be stored and compared as plain ints
+ * <p>
+ * Ordinals are never reused or reassigned. Interning is thread-safe, and lookups never lock.
+ */
+public class Interner {
+
+    /**
+     * A map of string -> ordinal
+     */
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+    /**
+     * The strings, indexed by ordinal. Only ever replaced by a larger copy.
+     */
+    private volatile String[] names = new String[256];
+    private int size = 0;
+
+    /**
+     * Get the ordinal of a string, assigning a new one if the string hasn't been seen before
+     * @param name The string
+     * @return The ordinal of the string
+     */
+    public int intern(@NonNull String name) {
+        Integer ordinal = this.ordinals.get(name);
+        return ordinal != null ? ordinal : this.internSlow(name);
+    }
+
+    private synchronized int internSlow(@NonNull String name) {
+        Integer ordinal = this.ordinals.get(name);
+        if (ordinal != null) {
+            return ordinal; // another thread interned it first
+        }
+
+        String[] names = this.names;
+        if (this.size == names.length) {
+            names = Arrays.copyOf(names, this.size * 2);
+        }
+        names[this.size] = name;
+        this.names = names;
+        this.ordinals.put(name, this.size);
+        return this.size++;
+    }
+
+    /**
+     * Get the ordinal of a string without interning it
+     * @param name The string
+     * @return The ordinal of the string, or -1 if it has never been interned
+     */
+    public int find(@NonNull String name) {
+        Integer ordinal = this.ordinals.get(name);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    /**
+     * @param ordinal An ordinal returned by {@link Interner#intern}
+     * @return The string of the ordinal
+     */
+    public String name(int ordinal) {
+        return this.names[ordinal];
+    }
+
+    /**
+     * @return The number of interned strings. Every ordinal is below this.
+     */
+    public int size() {
+        return this.ordinals.size();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.util;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Utilities for working with item ID lookups that may be either exact IDs or Regex expressions
+ */
+@UtilityClass
+public class PatternUtil {
+
+    /**
+     * Characters that give a lookup string Regex meaning. Item IDs never contain any of these.
+     */
+    private final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    /**
+     * A cache of Regex expression -> compiled {@link Pattern}
+     */
+    private final Map<String, Pattern> PATTERN_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Get the compiled form of a Regex expression, compiling it only the first time it is seen
+     * @param regex The Regex expression to compile
+     * @return The compiled {@link Pattern}
+     */
+    public Pattern compile(@NonNull String regex) {
+        return PATTERN_CACHE.computeIfAbsent(regex, Pattern::compile);
+    }
+
+    /**
+     * Tests whether a lookup string is an exact item ID rather than a Regex expression
+     * @param id The lookup string to check
+     * @return {@code true} if the provided string contains no Regex metacharacters
+     */
+    public boolean isLiteral(@NonNull String id) {
+        for (int i = 0; i < id.length(); i++) {
+            if (METACHARACTERS.indexOf(id.charAt(i)) != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the literal prefix that every string matched by a Regex expression must start with
+     * <p>
+     * For example, {@code ^TALISMAN_ENRICHMENT_[A-Z_]+$} has the literal prefix {@code TALISMAN_ENRICHMENT_}, while
+     * {@code ^(STARRED_)?MIDAS_SWORD$} has no literal prefix at all.
+     * @param regex The Regex expression to inspect
+     * @return The literal prefix of the expression, or an empty string if there is none
+     */
+    public String literalPrefix(@NonNull String regex) {
+
+        // a top-level alternation means different branches can start differently
+        int depth = 0;
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (c == '|' && depth == 0) {
+                return "";
+            }
+        }
+
+        int start = regex.startsWith("^") ? 1 : 0;
+        int end = start;
+
+        while (end < regex.length() && METACHARACTERS.indexOf(regex.charAt(end)) == -1) {
+            end++;
+        }
+
+        // a quantifier applies to the character before it, so that character isn't guaranteed to be present
+        if (end < regex.length() && end > start && "?*{".indexOf(regex.charAt(end)) != -1) {
+            end--;
+        }
+
+        return regex.substring(start, end);
+    }
+}
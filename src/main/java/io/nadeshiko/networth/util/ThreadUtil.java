@@ -0,0 +1,40 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.util;
+
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@UtilityClass
+public class ThreadUtil {
+
+    /**
+     * Create a {@link ThreadFactory} producing daemon threads, so that library background work never keeps the JVM
+     * alive on its own
+     * @param name The base name of the threads, suffixed with a counter, i.e. "AH-Fetch" gives "AH-Fetch-0"
+     * @return A new {@link ThreadFactory}
+     */
+    public ThreadFactory daemonFactory(@NonNull String name) {
+        AtomicInteger counter = new AtomicInteger();
+
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
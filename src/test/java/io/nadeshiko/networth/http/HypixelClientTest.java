@@ -0,0 +1,239 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.http;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.nadeshiko.networth.exception.HypixelApiException;
+import io.nadeshiko.networth.exception.InvalidApiKeyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link HypixelClient} and its {@link RateLimiter} against a mock API on a loopback {@link HttpServer}
+ * <p>
+ * The mock API allows {@link HypixelClientTest#LIMIT} requests per one second window, starting with the first request
+ * of the window, and answers any request over that budget with a 429, like the Hypixel API does.
+ */
+class HypixelClientTest {
+
+    private static final int LIMIT = 3;
+    private static final long WINDOW_MILLIS = 1000;
+
+    private HttpServer server;
+    private HypixelClient client;
+    private HypixelClient retryingClient;
+
+    /**
+     * The status of every request the mock API answered, and when it arrived, in milliseconds since the epoch
+     */
+    private final List<Integer> statuses = new CopyOnWriteArrayList<>();
+    private final List<Long> arrivals = new CopyOnWriteArrayList<>();
+
+    /**
+     * The state of the mock API's rate limit. Guarded by this.
+     */
+    private long windowStart = 0;
+    private int windowCount = 0;
+    private int rejectNext = 0; // requests to reject as if another client had spent the budget
+    private boolean rejectKey = false;
+    private int failStatus = 0; // the status to fail every request with, or 0 to answer normally
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", this::handle);
+        this.server.start();
+
+        String apiUrl = "http://127.0.0.1:" + this.server.getAddress().getPort();
+        this.client = new HypixelClient("key", apiUrl, new HttpTransport(HttpConfig.builder().maxRetries(0).build()));
+        this.retryingClient = new HypixelClient("key", apiUrl, new HttpTransport(HttpConfig.builder()
+            .maxRetries(2).retryBackoff(Duration.ofMillis(10)).build()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.client.shutdown();
+        this.retryingClient.shutdown();
+        this.server.stop(0);
+    }
+
+    @Test
+    void queuesRequestsOverBudgetUntilReset() {
+        List<CompletableFuture<JsonObject>> responses = new ArrayList<>();
+        for (int i = 0; i < LIMIT + 2; i++) {
+            responses.add(this.client.getAsync("/counts"));
+        }
+        responses.forEach(CompletableFuture::join);
+
+        // the budget was never exceeded, as requests over it waited for the reset instead
+        assertEquals(List.of(200, 200, 200, 200, 200), this.statuses);
+        assertTrue(this.arrivals.get(LIMIT) - this.arrivals.get(0) >= WINDOW_MILLIS,
+            "Requests over budget were sent before the reset");
+        assertEquals(LIMIT, this.client.getRateLimiter().getLimit());
+        assertEquals(0, this.client.getRateLimiter().getQueued());
+    }
+
+    @Test
+    void retriesRateLimitedRequestAfterReset() throws Exception {
+        synchronized (this) {
+            this.rejectNext = 1;
+        }
+
+        JsonObject response = this.client.get("/counts");
+
+        assertTrue(response.get("success").getAsBoolean());
+        assertEquals(List.of(429, 200), this.statuses);
+        assertTrue(this.arrivals.get(1) - this.arrivals.get(0) >= WINDOW_MILLIS,
+            "The rejected request was retried before the reset");
+    }
+
+    @Test
+    void throwsOnRejectedKey() {
+        synchronized (this) {
+            this.rejectKey = true;
+        }
+
+        assertThrows(InvalidApiKeyException.class, this.client::validateKey);
+    }
+
+    @Test
+    void validatesKeyWithoutRetries() throws Exception {
+        synchronized (this) {
+            this.failStatus = 503;
+        }
+
+        HypixelApiException e = assertThrows(HypixelApiException.class, this.retryingClient::validateKey);
+        assertEquals(503, e.getStatus());
+        assertEquals(List.of(503), this.statuses);
+
+        // other requests are retried as configured
+        assertThrows(HypixelApiException.class, () -> this.retryingClient.get("/counts"));
+        assertEquals(List.of(503, 503, 503, 503), this.statuses);
+    }
+
+    @Test
+    void cancelsQueuedRequestsOnShutdown() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.acquire().get(1, TimeUnit.SECONDS);
+        rateLimiter.update(200, headers(LIMIT, 0, 60));
+
+        CompletableFuture<Void> queued = rateLimiter.acquire();
+        rateLimiter.shutdown();
+
+        assertThrows(CancellationException.class, queued::join);
+        assertThrows(CancellationException.class, rateLimiter.acquire()::join);
+        assertEquals(0, rateLimiter.getQueued());
+    }
+
+    @Test
+    void keepsSmallestBudgetOfOutOfOrderResponses() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.acquire().get(1, TimeUnit.SECONDS);
+        rateLimiter.update(200, headers(10, 5, 60));
+
+        // a response to an older request, sent before the server counted the newer one
+        rateLimiter.acquire().get(1, TimeUnit.SECONDS);
+        rateLimiter.update(200, headers(10, 8, 60));
+
+        assertEquals(5, rateLimiter.getRemaining());
+        rateLimiter.shutdown();
+    }
+
+    @Test
+    void releasesQueuedRequestsOnReset() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter();
+        rateLimiter.acquire().get(1, TimeUnit.SECONDS);
+        rateLimiter.update(200, headers(LIMIT, 0, 1));
+
+        CompletableFuture<Void> queued = rateLimiter.acquire();
+        assertEquals(1, rateLimiter.getQueued());
+
+        queued.get(5, TimeUnit.SECONDS); // released once the advertised reset passes
+        assertEquals(LIMIT, rateLimiter.getRemaining());
+        rateLimiter.shutdown();
+    }
+
+    private static HttpHeaders headers(int limit, int remaining, int reset) {
+        return HttpHeaders.of(Map.of(
+            "RateLimit-Limit", List.of(String.valueOf(limit)),
+            "RateLimit-Remaining", List.of(String.valueOf(remaining)),
+            "RateLimit-Reset", List.of(String.valueOf(reset))
+        ), (name, value) -> true);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int status;
+        int remaining;
+        long resetMillis;
+
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            this.arrivals.add(now);
+
+            if (this.windowStart == 0 || now - this.windowStart >= WINDOW_MILLIS) {
+                this.windowStart = now;
+                this.windowCount = 0;
+            }
+
+            if (this.failStatus != 0) {
+                status = this.failStatus;
+            } else if (this.rejectKey) {
+                status = 403;
+            } else if (this.rejectNext > 0) {
+                this.rejectNext--;
+                this.windowCount = LIMIT; // another client spent the budget
+                status = 429;
+            } else {
+                status = ++this.windowCount > LIMIT ? 429 : 200;
+            }
+
+            remaining = Math.max(0, LIMIT - this.windowCount);
+            resetMillis = this.windowStart + WINDOW_MILLIS - now;
+            this.statuses.add(status);
+        }
+
+        exchange.getResponseHeaders().add("RateLimit-Limit", String.valueOf(LIMIT));
+        exchange.getResponseHeaders().add("RateLimit-Remaining", String.valueOf(remaining));
+        exchange.getResponseHeaders().add("RateLimit-Reset", String.valueOf((resetMillis + 999) / 1000));
+
+        byte[] body = (status == 200 ? "{\"success\":true}" : "{\"success\":false,\"cause\":\"Rejected\"}")
+            .getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
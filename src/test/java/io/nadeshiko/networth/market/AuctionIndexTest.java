@@ -0,0 +1,208 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.item.Gemstone;
+import io.nadeshiko.networth.item.Item;
+import io.nadeshiko.networth.item.ItemFeatures;
+import io.nadeshiko.networth.item.ItemSimilarity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link AuctionIndex}, checking its pruned lookups against a brute-force scan of the same auctions
+ * <p>
+ * Auctions are generated from a handful of modifiers and prices, so that many listings tie on penalty, price, or both,
+ * and buckets are large enough to be merge sorted rather than only insertion sorted.
+ */
+class AuctionIndexTest {
+
+    private static final String[] IDS = {"HYPERION", "TERMINATOR", "NECRON_HELMET", "DIVAN_CHESTPLATE"};
+    private static final String[] REFORGES = {"heroic", "fabled", "ancient"};
+    private static final String[] ENCHANTMENTS = {"ultimate_wise", "sharpness", "critical", "growth", "protection"};
+    private static final String[] SLOTS = {"COMBAT_0", "COMBAT_1", "DEFENSIVE_0", "UNIVERSAL_0"};
+    private static final double[] PRICES = {1_000_000, 1_500_000, 2_000_000, 5_000_000};
+
+    private Random random;
+    private List<AuctionHandler.Auction> auctions;
+    private AuctionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        this.random = new Random(42);
+        this.auctions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            this.auctions.add(this.randomAuction("auction-" + this.random.nextInt(1_000_000_000)));
+        }
+        this.index = new AuctionIndex(this.auctions);
+    }
+
+    @Test
+    void findsClosestLikeBruteForce() {
+        for (int i = 0; i < 500; i++) {
+            Item query = this.randomItem();
+            List<AuctionHandler.Auction> expected = this.bruteForce(query);
+
+            AuctionHandler.Auction closest = this.index.findClosest(query);
+            if (expected.isEmpty()) {
+                assertNull(closest);
+            } else {
+                assertEquals(expected.get(0).uuid(), closest.uuid(), "Closest match of " + query);
+            }
+        }
+    }
+
+    @Test
+    void findsTopKLikeBruteForce() {
+        for (int i = 0; i < 500; i++) {
+            Item query = this.randomItem();
+            int limit = 1 + this.random.nextInt(40);
+            List<AuctionHandler.Auction> expected = this.bruteForce(query);
+
+            List<String> actual = this.index.findClosest(query, limit).stream()
+                .map(AuctionHandler.Auction::uuid)
+                .toList();
+            assertEquals(expected.stream().limit(limit).map(AuctionHandler.Auction::uuid).toList(), actual,
+                "Closest " + limit + " matches of " + query);
+        }
+    }
+
+    @Test
+    void sortsBucketsByPrice() {
+        for (String id : IDS) {
+            List<AuctionHandler.Auction> bucket = this.index.getAuctions(id);
+            assertEquals(this.auctions.stream().filter(auction -> auction.item().getId().equals(id)).count(),
+                bucket.size());
+
+            for (int i = 1; i < bucket.size(); i++) {
+                AuctionHandler.Auction previous = bucket.get(i - 1);
+                AuctionHandler.Auction auction = bucket.get(i);
+                assertTrue(previous.price() < auction.price() || previous.price() == auction.price() &&
+                    previous.uuid().compareTo(auction.uuid()) < 0, "Bucket of " + id + " out of order at " + i);
+            }
+        }
+    }
+
+    @Test
+    void keepsFirstOfDuplicateUuids() {
+        AuctionIndex.Builder builder = AuctionIndex.builder();
+        for (AuctionHandler.Auction auction : this.auctions) {
+            builder.add(auction);
+        }
+        // the same listings again, relisted at other prices
+        for (AuctionHandler.Auction auction : this.auctions) {
+            builder.add(new AuctionHandler.Auction(auction.uuid(), auction.item(), auction.price() + 1, auction.end()));
+        }
+        // and copied from another index
+        for (int row = 0; row < this.index.size(); row++) {
+            builder.add(this.index, row);
+        }
+        AuctionIndex deduped = builder.build();
+
+        assertEquals(this.index.size(), deduped.size());
+        for (AuctionHandler.Auction auction : this.auctions) {
+            int row = deduped.findRow(auction.uuid());
+            assertTrue(row >= 0, "Lost auction " + auction.uuid());
+            assertEquals(auction.uuid(), deduped.uuid(row));
+            assertEquals(auction.price(), deduped.auction(row).price());
+            assertEquals(auction.item(), deduped.auction(row).item());
+        }
+    }
+
+    /**
+     * Score every auction of the same item, without pruning
+     * @return The matching auctions, most similar first, then by price and UUID like the index's buckets
+     */
+    private List<AuctionHandler.Auction> bruteForce(Item query) {
+        ItemFeatures queryFeatures = ItemFeatures.of(query);
+        record Scored(AuctionHandler.Auction auction, int penalty) {}
+
+        return this.deduped().stream()
+            .filter(auction -> auction.item().getId().equals(query.getId()))
+            .map(auction -> new Scored(auction, ItemSimilarity.standard()
+                .penalty(ItemFeatures.of(auction.item()), queryFeatures, ItemSimilarity.NO_MATCH)))
+            .filter(scored -> scored.penalty() < ItemSimilarity.NO_MATCH)
+            .sorted(Comparator.comparingInt(Scored::penalty)
+                .thenComparingDouble(scored -> scored.auction().price())
+                .thenComparing(scored -> scored.auction().uuid()))
+            .map(Scored::auction)
+            .toList();
+    }
+
+    /**
+     * @return The generated auctions, keeping only the first of any that drew the same UUID
+     */
+    private List<AuctionHandler.Auction> deduped() {
+        List<AuctionHandler.Auction> deduped = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (AuctionHandler.Auction auction : this.auctions) {
+            if (seen.add(auction.uuid())) {
+                deduped.add(auction);
+            }
+        }
+        return deduped;
+    }
+
+    private AuctionHandler.Auction randomAuction(String uuid) {
+        return new AuctionHandler.Auction(uuid, this.randomItem(), PRICES[this.random.nextInt(PRICES.length)],
+            Long.MAX_VALUE);
+    }
+
+    private Item randomItem() {
+        Item item = new Item(
+            1,
+            IDS[this.random.nextInt(IDS.length)],
+            this.random.nextInt(11),
+            this.random.nextInt(3) == 0 ? this.random.nextInt(6) : 0,
+            this.random.nextBoolean(),
+            this.random.nextInt(4) == 0,
+            this.random.nextBoolean(),
+            false,
+            this.random.nextInt(4) == 0 ? null : REFORGES[this.random.nextInt(REFORGES.length)],
+            this.random.nextInt(8) == 0 ? "DYE_PURE_BLACK" : null,
+            this.random.nextInt(4) == 0,
+            this.random.nextInt(6)
+        );
+
+        for (String enchantment : ENCHANTMENTS) {
+            if (this.random.nextInt(3) > 0) {
+                item.putEnchantment(enchantment, 4 + this.random.nextInt(3));
+            }
+        }
+
+        for (int i = this.random.nextInt(3); i > 0; i--) {
+            item.addGemstone(Gemstone.of(Gemstone.Type.values()[this.random.nextInt(3)],
+                Gemstone.Quality.values()[this.random.nextInt(Gemstone.Quality.values().length)]));
+        }
+
+        for (String slot : SLOTS) {
+            if (this.random.nextInt(3) == 0) {
+                item.addUnlockedGemstoneSlot(slot);
+            }
+        }
+
+        return item;
+    }
+}
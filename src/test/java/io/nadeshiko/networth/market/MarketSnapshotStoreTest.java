@@ -0,0 +1,111 @@
+/*
+ * This file is a part of the nadeshiko project. nadeshiko is free software, licensed under the MIT license.
+ *
+ * Usage of these works (including, yet not limited to, reuse, modification, copying, distribution, and selling) is
+ * permitted, provided that the relevant copyright notice and permission notice (as specified in LICENSE) shall be
+ * included in all copies or substantial portions of this software.
+ *
+ * These works are provided "AS IS" with absolutely no warranty of any kind, either expressed or implied.
+ *
+ * You should have received a copy of the MIT License alongside this software; refer to LICENSE for information.
+ * If not, refer to https://mit-license.org.
+ */
+
+package io.nadeshiko.networth.market;
+
+import io.nadeshiko.networth.item.Gemstone;
+import io.nadeshiko.networth.item.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of {@link MarketSnapshotStore}, saving snapshots and loading them back
+ */
+class MarketSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void loadsWhatWasSaved() {
+        List<AuctionHandler.Auction> auctions = new ArrayList<>();
+
+        Item plain = new Item(1, "ASPECT_OF_THE_END", 0, 0, false, false, false, false, null, null, false, 0);
+        auctions.add(new AuctionHandler.Auction("plain", plain, 250_000, 1_700_000_000_000L));
+
+        // every modifier, at values that don't fit a signed byte
+        Item loaded = new Item(64, "HYPERION", 200, 130, true, true, true, true, "heroic", "DYE_PURE_BLACK", true, 255);
+        loaded.putEnchantment("ultimate_wise", 5);
+        loaded.putEnchantment("sharpness", 7);
+        loaded.addGemstone(Gemstone.of(Gemstone.Type.SAPPHIRE, Gemstone.Quality.PERFECT));
+        loaded.addGemstone(Gemstone.of(Gemstone.Type.JASPER, Gemstone.Quality.FINE));
+        loaded.addGemstone(Gemstone.of(null, Gemstone.Quality.FLAWED)); // of an unknown type
+        loaded.addUnlockedGemstoneSlot("COMBAT_0");
+        loaded.addUnlockedGemstoneSlot("COMBAT_1");
+        auctions.add(new AuctionHandler.Auction("loaded", loaded, 1_250_000_000, Long.MAX_VALUE));
+
+        MarketSnapshot saved = MarketSnapshot.EMPTY
+            .withBazaar(BazaarSnapshot.builder()
+                .add("ENCHANTED_DIAMOND", 1_650.5, 1_500)
+                .add("RECOMBOBULATOR_3000", 9_000_000, 8_750_000)
+                .build())
+            .withAuctions(new AuctionIndex(auctions));
+
+        MarketSnapshotStore store = new MarketSnapshotStore(this.directory.resolve("market.snapshot"));
+        assertTrue(store.save(saved));
+        MarketSnapshot restored = store.load();
+
+        assertNotNull(restored);
+        assertEquals(saved.bazaar().size(), restored.bazaar().size());
+        for (String product : List.of("ENCHANTED_DIAMOND", "RECOMBOBULATOR_3000")) {
+            int ordinal = ProductRegistry.intern(product);
+            assertEquals(saved.bazaar().getBuyPrice(ordinal), restored.bazaar().getBuyPrice(ordinal));
+            assertEquals(saved.bazaar().getSellPrice(ordinal), restored.bazaar().getSellPrice(ordinal));
+        }
+
+        assertEquals(auctions.size(), restored.auctions().size());
+        for (AuctionHandler.Auction auction : auctions) {
+            int row = restored.auctions().findRow(auction.uuid());
+            assertTrue(row >= 0, "Lost auction " + auction.uuid());
+            assertEquals(auction, restored.auctions().auction(row));
+        }
+    }
+
+    @Test
+    void skipsAuctionsWithOverLongStrings() {
+        Item item = new Item(1, "HYPERION", 0, 0, false, false, false, false, null, null, false, 0);
+        Item overLong = new Item(1, "HYPERION", 0, 0, false, false, false, false, "x".repeat(70_000), null, false, 0);
+
+        MarketSnapshot saved = MarketSnapshot.EMPTY.withAuctions(new AuctionIndex(List.of(
+            new AuctionHandler.Auction("kept", item, 1_000_000, Long.MAX_VALUE),
+            new AuctionHandler.Auction("skipped", overLong, 1_000_000, Long.MAX_VALUE)
+        )));
+
+        MarketSnapshotStore store = new MarketSnapshotStore(this.directory.resolve("market.snapshot"));
+        assertTrue(store.save(saved));
+        MarketSnapshot restored = store.load();
+
+        assertNotNull(restored);
+        assertEquals(1, restored.auctions().size());
+        assertEquals("kept", restored.auctions().uuid(0));
+    }
+
+    @Test
+    void ignoresMissingAndForeignFiles() throws Exception {
+        Path file = this.directory.resolve("market.snapshot");
+        assertNull(new MarketSnapshotStore(file).load());
+
+        Files.writeString(file, "not a market snapshot");
+        assertNull(new MarketSnapshotStore(file).load());
+    }
+}